@@ -0,0 +1,43 @@
+package ePortfolio.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *  BenchmarkMain class runs the benchmarks with the usual JMH command line options.
+ *  Results are written as JSON to jmh-result.json unless -rf or -rff choose another format or file,
+ *  for example: java -jar benchmarks/target/benchmarks.jar SearchBenchmark -p size=1000
+ */
+public final class BenchmarkMain {
+    /**
+     * Name of the result file written when -rff isn't given.
+     */
+    public static final String RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkMain() {
+
+    }
+
+    public static void main(String [] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams() ||
+        options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue()) {
+            builder.result(RESULT_FILE);
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
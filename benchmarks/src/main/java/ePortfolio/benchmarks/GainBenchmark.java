@@ -0,0 +1,57 @@
+package ePortfolio.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ePortfolio.Portfolio;
+
+/**
+ *  GainBenchmark class measures the aggregate gain, read from the running totals or recomputed from
+ *  every investment, and the listing of the individual gains.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GainBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"OBJECT", "COLUMNAR"})
+    public Portfolio.Engine engine;
+
+    private Portfolio portfolio;
+
+    @Setup
+    public void setup() throws Exception {
+        portfolio = SyntheticPortfolio.portfolio(size, 42, engine);
+    }
+
+    @Benchmark
+    public double getGain() {
+        return portfolio.getGain();
+    }
+
+    @Benchmark
+    public double computeGain() {
+        return portfolio.computeGain();
+    }
+
+    @Benchmark
+    public String getIndividualGains() {
+        return portfolio.getIndividualGains();
+    }
+}
@@ -0,0 +1,86 @@
+package ePortfolio.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ePortfolio.Portfolio;
+
+/**
+ *  PersistenceBenchmark class measures saving and loading portfolios in the text format and the binary
+ *  snapshot format. Files are written to a temporary directory that is deleted after the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    private Portfolio portfolio;
+    private Path directory;
+    private String textFile;
+    private String snapshotFile;
+    private String outputFile;
+
+    @Setup
+    public void setup() throws Exception {
+        portfolio = SyntheticPortfolio.portfolio(size, 42);
+        directory = Files.createTempDirectory("portfolio-bench");
+        textFile = directory.resolve("portfolio.txt").toString();
+        snapshotFile = directory.resolve("portfolio.epfs").toString();
+        outputFile = directory.resolve("output").toString();
+
+        portfolio.saveInvestments(textFile);
+        portfolio.saveSnapshot(snapshotFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    @Benchmark
+    public Portfolio loadText() throws Exception {
+        Portfolio loaded = new Portfolio();
+        loaded.loadInvestments(textFile);
+        return loaded;
+    }
+
+    @Benchmark
+    public void saveText() throws Exception {
+        portfolio.saveInvestments(outputFile);
+    }
+
+    @Benchmark
+    public Portfolio loadSnapshot() throws Exception {
+        Portfolio loaded = new Portfolio();
+        loaded.loadSnapshot(snapshotFile);
+        return loaded;
+    }
+
+    @Benchmark
+    public void saveSnapshot() throws Exception {
+        portfolio.saveSnapshot(outputFile);
+    }
+}
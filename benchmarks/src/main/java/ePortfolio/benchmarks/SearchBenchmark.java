@@ -0,0 +1,77 @@
+package ePortfolio.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ePortfolio.Investment;
+import ePortfolio.Portfolio;
+
+/**
+ *  SearchBenchmark class measures Portfolio.search by keywords and by price range and the lookups by symbol.
+ *  Keyword searches match about 1 in 1000 investments and price ranges cover 0.1% of the prices,
+ *  so the size of the results grows with the portfolio like it would for real queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    private Portfolio portfolio;
+    private ArrayList<Investment> investments;
+
+    @Setup
+    public void setup() throws Exception {
+        portfolio = SyntheticPortfolio.portfolio(size, 42);
+        investments = portfolio.getArray();
+    }
+
+    @Benchmark
+    public String keywordSearch() throws Exception {
+        String [] words = SyntheticPortfolio.WORDS;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        return portfolio.search("", words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] +
+        " " + words[random.nextInt(words.length)], "", "");
+    }
+
+    @Benchmark
+    public String priceRangeSearch() throws Exception {
+        double low = 1 + ThreadLocalRandom.current().nextDouble() * (SyntheticPortfolio.MAX_PRICE - 2);
+        double high = low + SyntheticPortfolio.MAX_PRICE / 1000;
+
+        return portfolio.search("", "", Double.toString(low), Double.toString(high));
+    }
+
+    @Benchmark
+    public String symbolSearch() throws Exception {
+        return portfolio.search(SyntheticPortfolio.symbol(ThreadLocalRandom.current().nextInt(size)), "", "", "");
+    }
+
+    @Benchmark
+    public Investment getInvestment() {
+        return portfolio.getInvestment(SyntheticPortfolio.symbol(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public int investmentExists() {
+        return portfolio.investmentExists(investments, SyntheticPortfolio.symbol(ThreadLocalRandom.current().nextInt(size)));
+    }
+}
@@ -0,0 +1,105 @@
+package ePortfolio.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import ePortfolio.Investment;
+import ePortfolio.MutualFund;
+import ePortfolio.Portfolio;
+import ePortfolio.Stock;
+
+/**
+ *  SyntheticPortfolio class generates the portfolios measured by the benchmarks.
+ *  Investments alternate between stocks and mutual funds, names are made of words drawn from a small
+ *  vocabulary so keyword searches match many investments, prices are spread between 1 and 1000.
+ *  The same size and seed always generate the same portfolio.
+ */
+final class SyntheticPortfolio {
+    /**
+     * Words names are made of.
+     */
+    static final String [] WORDS = {
+        "global", "growth", "income", "energy", "health", "capital", "bank", "tech",
+        "bond", "equity", "index", "value", "pacific", "atlantic", "north", "south",
+        "gold", "silver", "realty", "dividend", "small", "large", "mid", "cap",
+        "emerging", "markets", "balanced", "strategic", "select", "core", "total", "return"
+    };
+
+    /**
+     * Highest price of the generated investments.
+     */
+    static final double MAX_PRICE = 1000;
+
+    private SyntheticPortfolio() {
+
+    }
+
+    /**
+     * Method generates the investments of a portfolio.
+     * @param size An integer value containing the number of investments.
+     * @param seed A long value seeding the random numbers.
+     * @return An ArrayList containing the Investment objects in portfolio order.
+     */
+    static ArrayList<Investment> investments(int size, long seed) throws Exception {
+        Random random = new Random(seed);
+        ArrayList<Investment> investments = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Investment investment = i % 2 == 0 ? new Stock() : new MutualFund();
+            int quantity = 1 + random.nextInt(1000);
+
+            investment.setSymbol(symbol(i));
+            investment.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] +
+            " " + WORDS[random.nextInt(WORDS.length)]);
+            investment.setQuantity(quantity);
+            investment.updatePrice(1 + random.nextDouble() * (MAX_PRICE - 1));
+            investment.setBookValue(quantity * (1 + random.nextDouble() * (MAX_PRICE - 1)));
+            investments.add(investment);
+        }
+
+        return investments;
+    }
+
+    /**
+     * Method generates a portfolio.
+     * @param size An integer value containing the number of investments.
+     * @param seed A long value seeding the random numbers.
+     * @return A Portfolio object holding the generated investments.
+     */
+    static Portfolio portfolio(int size, long seed) throws Exception {
+        return new Portfolio(investments(size, seed));
+    }
+
+    /**
+     * Method generates a portfolio using a storage engine, the investments are loaded from a temporary file
+     * since only loading chooses the engine.
+     * @param size An integer value containing the number of investments.
+     * @param seed A long value seeding the random numbers.
+     * @param engine Engine value choosing how the state of the investments is stored.
+     * @return A Portfolio object holding the generated investments.
+     */
+    static Portfolio portfolio(int size, long seed, Portfolio.Engine engine) throws Exception {
+        Path file = Files.createTempFile("portfolio-bench", ".txt");
+
+        try {
+            portfolio(size, seed).saveInvestments(file.toString());
+            Portfolio portfolio = new Portfolio(engine);
+            portfolio.loadInvestments(file.toString());
+            return portfolio;
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Method returns the symbol of the investment at a position of a generated portfolio.
+     * @param index An integer value containing the position of the investment.
+     * @return String object containing the symbol.
+     */
+    static String symbol(int index) {
+        return "SYM" + index;
+    }
+}
@@ -0,0 +1,83 @@
+package ePortfolio.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ePortfolio.Portfolio;
+import ePortfolio.TradeStatus;
+
+/**
+ *  TradeBenchmark class measures the throughput of Portfolio.buy and Portfolio.sell, with String and typed arguments.
+ *  Every operation buys and sells the same quantity so the portfolio keeps its size across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    private Portfolio portfolio;
+
+    @Setup
+    public void setup() throws Exception {
+        portfolio = SyntheticPortfolio.portfolio(size, 42);
+    }
+
+    /**
+     * Buys more of an owned investment and sells it again.
+     */
+    @Benchmark
+    public String buyAndSellExisting() throws Exception {
+        int index = ThreadLocalRandom.current().nextInt(size);
+        String symbol = SyntheticPortfolio.symbol(index);
+
+        // generated investments alternate between stocks and mutual funds
+        portfolio.buy(index % 2 == 0 ? "stock" : "mutualfund", symbol, "ignored", "10", "25.5");
+        return portfolio.sell(symbol, "10", "26");
+    }
+
+    /**
+     * Buys a new investment and sells all of it, adding and removing a holding.
+     */
+    @Benchmark
+    public String buyNewAndSellOut() throws Exception {
+        portfolio.buy("stock", "NEW", "benchmark new holding", "10", "25.5");
+        return portfolio.sell("NEW", "10", "26");
+    }
+
+    /**
+     * Buys more of an owned investment and sells it again through the typed trade methods.
+     */
+    @Benchmark
+    public TradeStatus buyAndSellExistingTyped() {
+        int index = ThreadLocalRandom.current().nextInt(size);
+        String symbol = SyntheticPortfolio.symbol(index);
+
+        portfolio.buyMicros(index % 2 == 0, symbol, "ignored", 10, 25_500_000);
+        return portfolio.sellMicros(symbol, 10, 26_000_000);
+    }
+
+    /**
+     * Sends an order the typed trade methods reject, which is reported without an Exception.
+     */
+    @Benchmark
+    public TradeStatus rejectedOrderTyped() {
+        return portfolio.sell("MISSING", 10, 26.0);
+    }
+}
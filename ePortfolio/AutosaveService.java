@@ -0,0 +1,319 @@
+package ePortfolio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  AutosaveService class persists the changes of a Portfolio in the background.
+ *  Only the investments changed since the last save are appended to a delta file next to the portfolio file,
+ *  in the same text format written by Portfolio.saveInvestments, sold out investments are written with a quantity of 0.
+ *  Once the delta file grows past half of the portfolio file it's compacted into a full rewrite of the portfolio file.
+ *  Saves are started by a scheduler thread after an interval or a number of changes. The portfolio itself is only
+ *  read on the thread given to the service, usually the thread making the changes, and the files are written
+ *  on the scheduler thread.
+ */
+public class AutosaveService implements Closeable {
+    /**
+     * Extension added to the portfolio file name to name the delta file.
+     */
+    public static final String DELTA_EXTENSION = ".delta";
+
+    /**
+     * Smallest delta file size in bytes that is compacted.
+     */
+    private static final long MIN_COMPACTION_SIZE = 1 << 16;
+
+    /**
+     * Longest time in milliseconds between checks of the number of changes.
+     */
+    private static final long MAX_POLL_MILLIS = 100;
+
+    private final Portfolio portfolio;
+    private final Path file;
+    private final Path deltaFile;
+    private final long intervalMillis;
+    private final int changeThreshold;
+    private final Executor portfolioThread;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * True while a save is captured or written, saves never overlap.
+     */
+    private boolean saving = false;
+    private boolean compactionNeeded = true;
+    private boolean closed = false;
+    private long lastSave = System.currentTimeMillis();
+    private long saveCount = 0;
+    private long compactionCount = 0;
+    private volatile Exception lastError = null;
+
+    /**
+     * Constructor declares a new AutosaveService object for a portfolio whose changes are made on a single thread.
+     * The portfolio is read on that thread through portfolioThread, for example EventQueue::invokeLater for a GUI.
+     * The portfolio file is rewritten by the first save, so the portfolio should already hold its contents.
+     * @param portfolio A Portfolio object whose changes are saved.
+     * @param fileName String object containing the name of the portfolio file.
+     * @param intervalMillis A long value containing the longest time in milliseconds a change stays unsaved.
+     * @param changeThreshold An integer value containing the number of changes that start a save before the interval.
+     * @param portfolioThread An Executor running tasks on the thread making the changes.
+     */
+    public AutosaveService(Portfolio portfolio, String fileName, long intervalMillis, int changeThreshold,
+    Executor portfolioThread) {
+        if (intervalMillis <= 0 || changeThreshold <= 0) {
+            throw new IllegalArgumentException("ERROR: Interval and change threshold need to be higher than 0.");
+        }
+
+        this.portfolio = portfolio;
+        this.file = Paths.get(fileName.strip());
+        this.deltaFile = Paths.get(fileName.strip() + DELTA_EXTENSION);
+        this.intervalMillis = intervalMillis;
+        this.changeThreshold = changeThreshold;
+        this.portfolioThread = portfolioThread;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "portfolio-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = executor;
+
+        portfolioThread.execute(portfolio::trackChanges);
+        long poll = Math.min(intervalMillis, MAX_POLL_MILLIS);
+        scheduler.scheduleWithFixedDelay(this::poll, poll, poll, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructor declares a new AutosaveService object reading the portfolio on the scheduler thread,
+     * the portfolio must not be changed while a save is captured.
+     * @param portfolio A Portfolio object whose changes are saved.
+     * @param fileName String object containing the name of the portfolio file.
+     * @param intervalMillis A long value containing the longest time in milliseconds a change stays unsaved.
+     * @param changeThreshold An integer value containing the number of changes that start a save before the interval.
+     */
+    public AutosaveService(Portfolio portfolio, String fileName, long intervalMillis, int changeThreshold) {
+        this(portfolio, fileName, intervalMillis, changeThreshold, Runnable::run);
+    }
+
+    /**
+     * Method loads a portfolio file and applies the changes saved to its delta file.
+     * @param portfolio A Portfolio object the investments are added to.
+     * @param fileName String object containing the name of the portfolio file.
+     */
+    public static void restore(Portfolio portfolio, String fileName) throws Exception {
+        if (Files.exists(Paths.get(fileName.strip()))) {
+            portfolio.loadInvestments(fileName);
+        }
+
+        String deltaName = fileName.strip() + DELTA_EXTENSION;
+        if (Files.exists(Paths.get(deltaName))) {
+            try {
+                new InvestmentFileReader(portfolio::restoreHolding).read(deltaName);
+            }
+            catch (Exception e) {
+                throw new Exception("Failed to read changes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Method starts a save of the changes without waiting for the interval or the change threshold.
+     */
+    public void flush() {
+        scheduler.execute(() -> save(false));
+    }
+
+    /**
+     * Method starts a full rewrite of the portfolio file, emptying the delta file.
+     */
+    public void compact() {
+        scheduler.execute(() -> save(true));
+    }
+
+    /**
+     * An accessor method that reads the number of saves written.
+     * @return The long number of saves, including compactions.
+     */
+    public synchronized long getSaveCount() {
+        return saveCount;
+    }
+
+    /**
+     * An accessor method that reads the number of full rewrites of the portfolio file.
+     * @return The long number of compactions.
+     */
+    public synchronized long getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * An accessor method that reads the error of the last save that failed.
+     * The next save after a failure is a full rewrite, so no change is lost.
+     * @return An Exception object, or null if no save failed.
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Method stops the scheduler and saves the remaining changes.
+     * It must be called on the thread making the changes, the portfolio is read on the calling thread.
+     * If a save is still waiting for the portfolio thread the portfolio file is rewritten instead.
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // scheduler tasks never wait for the portfolio thread, so a save still running waits for its capture
+        boolean compaction;
+        synchronized (this) {
+            compaction = compactionNeeded || saving;
+        }
+        Exception previousError = lastError;
+        write(compaction, compaction ? captureAll() : portfolio.drainChanges());
+        if (lastError != previousError) {
+            throw new IOException("Failed to save changes: " + lastError.getMessage(), lastError);
+        }
+    }
+
+    /**
+     * Private method run by the scheduler, starting a save once the interval passed or enough changes were made.
+     */
+    private void poll() {
+        int pending = portfolio.pendingChanges();
+        boolean due;
+
+        synchronized (this) {
+            due = pending >= changeThreshold || compactionNeeded ||
+            (pending > 0 && System.currentTimeMillis() - lastSave >= intervalMillis);
+        }
+
+        if (due) {
+            save(false);
+        }
+    }
+
+    /**
+     * Private method captures the changes on the portfolio thread and writes them on the scheduler thread.
+     * @param compaction A boolean value that is true to rewrite the portfolio file.
+     */
+    private void save(boolean compaction) {
+        synchronized (this) {
+            if (saving || closed) {
+                return;
+            }
+            saving = true;
+            compaction |= compactionNeeded;
+        }
+
+        boolean full = compaction;
+        CompletableFuture.supplyAsync(() -> full ? captureAll() : portfolio.drainChanges(), portfolioThread)
+        .thenAcceptAsync(text -> write(full, text), scheduler)
+        .whenComplete((ignored, error) -> {
+            synchronized (this) {
+                saving = false;
+                if (error != null) {
+                    lastError = error instanceof Exception ? (Exception)error : new Exception(error);
+                    compactionNeeded = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Private method captures the whole portfolio, run on the portfolio thread.
+     * Changes are drained too since the rewrite contains them.
+     */
+    private String captureAll() {
+        portfolio.drainChanges();
+        return portfolio.toString();
+    }
+
+    /**
+     * Private method writes a capture to the files.
+     * A compaction replaces the portfolio file and empties the delta file, otherwise the changes are appended to the
+     * delta file. Either way the data is forced to disk before the next save, nothing is written without changes.
+     * @param compaction A boolean value that is true if text contains the whole portfolio.
+     * @param text String object containing the investments in the text format.
+     */
+    private void write(boolean compaction, String text) {
+        // nothing changed since the last save
+        if (!compaction && text.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (compaction) {
+                Path temporary = Paths.get(file + ".tmp");
+                writeFully(temporary, text, StandardOpenOption.TRUNCATE_EXISTING);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(deltaFile);
+
+                // the rename and the deletion only survive a power loss once the directory is on disk
+                SnapshotFile.forceDirectory(file.toAbsolutePath().getParent());
+            }
+            else {
+                writeFully(deltaFile, text, StandardOpenOption.APPEND);
+            }
+
+            synchronized (this) {
+                lastSave = System.currentTimeMillis();
+                saveCount++;
+                compactionNeeded = false;
+                if (compaction) {
+                    compactionCount++;
+                }
+                else if (Files.exists(deltaFile) &&
+                Files.size(deltaFile) > Math.max(MIN_COMPACTION_SIZE, Files.exists(file) ? Files.size(file) / 2 : 0)) {
+                    compactionNeeded = true;
+                }
+            }
+        }
+        catch (IOException e) {
+            synchronized (this) {
+                lastError = e;
+                compactionNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * Private method writes text to a file in UTF-8 and forces it to disk.
+     * A replaced file is forced with its metadata since it's renamed afterwards, appends only force the content.
+     * @param mode A StandardOpenOption value, TRUNCATE_EXISTING to replace the file or APPEND to add to it.
+     */
+    private static void writeFully(Path path, String text, StandardOpenOption mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(mode != StandardOpenOption.APPEND);
+        }
+    }
+}
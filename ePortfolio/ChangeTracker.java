@@ -0,0 +1,59 @@
+package ePortfolio;
+
+import java.util.ArrayList;
+
+/**
+ *  ChangeTracker class records which holdings of a Portfolio changed since its changes were last persisted.
+ *  Changed holdings are kept by holding ID, sold out holdings are kept as their last state since their IDs are reused.
+ */
+class ChangeTracker {
+    /**
+     * Holding IDs of the owned investments that changed.
+     */
+    HoldingBitmap changedIds = new HoldingBitmap();
+
+    /**
+     * Last states of the investments sold out, their quantity is 0.
+     */
+    ArrayList<Investment> removed = new ArrayList<>();
+
+    /**
+     * Number of changes recorded, read by other threads to decide when to persist.
+     */
+    private volatile int count = 0;
+
+    /**
+     * Default constructor that declares a new ChangeTracker object without changes.
+     */
+    ChangeTracker() {
+
+    }
+
+    /**
+     * Method records a change to an owned investment.
+     * @param id An integer value containing the holding ID of the investment.
+     */
+    void changed(int id) {
+        changedIds.add(id);
+        count++;
+    }
+
+    /**
+     * Method records an investment that was sold out.
+     * @param id An integer value containing the released holding ID of the investment.
+     * @param investment An Investment object containing the last state of the investment.
+     */
+    void removed(int id, Investment investment) {
+        changedIds.remove(id);
+        removed.add(investment);
+        count++;
+    }
+
+    /**
+     * An accessor method that reads the number of changes recorded.
+     * @return The integer number of changes, repeated changes to a holding are all counted.
+     */
+    int getCount() {
+        return count;
+    }
+}
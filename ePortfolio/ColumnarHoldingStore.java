@@ -0,0 +1,228 @@
+package ePortfolio;
+
+import java.util.Arrays;
+
+/**
+ *  ColumnarHoldingStore class keeps the investments in parallel primitive arrays indexed by their holding ID.
+ *  Quantities, prices and book values (in Money micro-units) are stored in contiguous columns so portfolio wide scans don't
+ *  follow a reference per investment, symbols and names are kept in a side table of Strings.
+ *  Investment objects are only created as views when an investment is requested.
+ */
+class ColumnarHoldingStore implements HoldingStore {
+    /**
+     * Type column value of free holding IDs.
+     */
+    private static final byte FREE = 0;
+
+    /**
+     * Type column value of Stock investments.
+     */
+    private static final byte STOCK = 1;
+
+    /**
+     * Type column value of MutualFund investments.
+     */
+    private static final byte MUTUAL_FUND = 2;
+
+    private byte [] types = new byte[0];
+    private int [] quantities = new int[0];
+    private long [] prices = new long[0];
+    private long [] bookValues = new long[0];
+    private String [] symbols = new String[0];
+    private String [] names = new String[0];
+
+    /**
+     * Default constructor that declares a new empty ColumnarHoldingStore object.
+     */
+    ColumnarHoldingStore() {
+
+    }
+
+    public void add(int id, Investment investment) {
+        if (id >= types.length) {
+            grow(Math.max(id + 1, types.length * 2));
+        }
+
+        types[id] = investment instanceof Stock ? STOCK : MUTUAL_FUND;
+        symbols[id] = investment.getSymbol();
+        names[id] = investment.getName();
+        quantities[id] = investment.getQuantity();
+        prices[id] = investment.getPriceMicros();
+        bookValues[id] = investment.getBookValueMicros();
+    }
+
+    public void remove(int id) {
+        types[id] = FREE;
+        symbols[id] = null;
+        names[id] = null;
+        quantities[id] = 0;
+        prices[id] = 0;
+        bookValues[id] = 0;
+    }
+
+    /**
+     * Method creates a view of the investment from the columns.
+     * The view is detached, changes made to it aren't written back to the store.
+     */
+    public Investment get(int id) {
+        Investment view = types[id] == STOCK ? new Stock() : new MutualFund();
+
+        view.symbol = symbols[id];
+        view.name = names[id];
+        view.quantity = quantities[id];
+        view.price = prices[id];
+        view.bookValue = bookValues[id];
+        view.gain = getGainMicros(id);
+        return view;
+    }
+
+    /**
+     * Method returns the same detached view as get, views are never modified by the store.
+     */
+    public Investment copyOf(int id) {
+        return get(id);
+    }
+
+    public boolean isStock(int id) {
+        return types[id] == STOCK;
+    }
+
+    public String getSymbol(int id) {
+        return symbols[id];
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getQuantity(int id) {
+        return quantities[id];
+    }
+
+    public double getPrice(int id) {
+        return Money.toDouble(prices[id]);
+    }
+
+    public long getPriceMicros(int id) {
+        return prices[id];
+    }
+
+    public double getBookValue(int id) {
+        return Money.toDouble(bookValues[id]);
+    }
+
+    public long getBookValueMicros(int id) {
+        return bookValues[id];
+    }
+
+    public double getGain(int id) {
+        return Money.toDouble(getGainMicros(id));
+    }
+
+    public long getGainMicros(int id) {
+        long payment = Money.multiply(prices[id], quantities[id]) - commission(types[id]);
+        return payment - bookValues[id];
+    }
+
+    /**
+     * Method performs a purchase with the same arithmetic as Investment.buyMicros.
+     */
+    public void buy(int id, long price, int quantity) throws Exception {
+        // negative quantities are ignored
+        if (quantity < 0) {
+            return;
+        }
+        else if (price < 0) {
+            throw new Exception("Invalid price.");
+        }
+
+        long bookValue = Math.addExact(bookValues[id], Money.multiply(price, quantity));
+        if (types[id] == STOCK) {
+            bookValue = Math.addExact(bookValue, Stock.COMMISSION_MICROS);
+        }
+
+        quantities[id] = Math.addExact(quantities[id], quantity);
+        bookValues[id] = bookValue;
+        prices[id] = price;
+    }
+
+    /**
+     * Method performs a sell with the same arithmetic as Investment.sellMicros.
+     */
+    public void sell(int id, int quantity, long price) throws Exception {
+        // branch checks if quantity is valid and there is a sufficient quantity to sell
+        if (quantity < 0) {
+            return;
+        }
+        else if (quantity > quantities[id]) {
+            throw new Exception("ERROR: Can't sell a higher quantity than owned. Try again.");
+        }
+        else if (price < 0) {
+            throw new Exception("Invalid price.");
+        }
+
+        // update bookvalue to the value of remaining quantity, nothing is left to scale if nothing is owned
+        if (quantities[id] > 0) {
+            bookValues[id] = Money.scale(bookValues[id], quantities[id] - quantity, quantities[id]);
+        }
+        quantities[id] -= quantity;
+        prices[id] = price;
+    }
+
+    public void setPrice(int id, long price) throws Exception {
+        if (price < 0) {
+            throw new Exception("Invalid price.");
+        }
+
+        prices[id] = price;
+    }
+
+    /**
+     * Method computes the total gain with a single pass over the columns.
+     */
+    public long getTotalGainMicros() {
+        long sum = 0;
+
+        for (int id = 0; id < types.length; id++) {
+            if (types[id] != FREE) {
+                sum = Math.addExact(sum, getGainMicros(id));
+            }
+        }
+
+        return sum;
+    }
+
+    public HoldingStore copy() {
+        ColumnarHoldingStore copy = new ColumnarHoldingStore();
+
+        copy.types = types.clone();
+        copy.quantities = quantities.clone();
+        copy.prices = prices.clone();
+        copy.bookValues = bookValues.clone();
+        copy.symbols = symbols.clone();
+        copy.names = names.clone();
+        return copy;
+    }
+
+    /**
+     * Private method finds the commission deducted from the gain of an investment type.
+     * @param type A byte value containing the type column value of the investment.
+     * @return A long value containing the commission in Money micro-units.
+     */
+    private static long commission(byte type) {
+        return type == STOCK ? Stock.COMMISSION_MICROS : MutualFund.COMMISSION_MICROS;
+    }
+
+    /**
+     * Private method grows all columns to a new capacity.
+     * @param capacity An integer value containing the new number of holding IDs the columns can hold.
+     */
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        bookValues = Arrays.copyOf(bookValues, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+}
@@ -0,0 +1,431 @@
+package ePortfolio;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ *  ConcurrentPortfolio class keeps records of investments that are traded from many threads at once.
+ *  Every symbol is guarded by one of a fixed number of striped locks, so trades on symbols of different
+ *  stripes run in parallel. Adding and removing investments also updates the portfolio order under its own lock.
+ *  Trades share the aggregate lock while aggregate reads like getGain hold it alone, so they see the state
+ *  between trades. Buys, sells and error messages behave the same as Portfolio.
+ */
+public class ConcurrentPortfolio {
+    /**
+     * Investments owned by their lowercase symbol, modified under the stripe lock of the symbol.
+     */
+    private final ConcurrentHashMap<String, Investment> holdings = new ConcurrentHashMap<>();
+
+    /**
+     * Investments owned by their lowercase symbol in the order they were added, guarded by orderLock.
+     */
+    private final LinkedHashMap<String, Investment> order = new LinkedHashMap<>();
+    private final ReentrantLock orderLock = new ReentrantLock();
+
+    /**
+     * Locks guarding the symbols, the stripe of a symbol is chosen by the hash of its lowercase symbol.
+     */
+    private final ReentrantLock [] stripes;
+
+    /**
+     * Lock shared by trades and held alone by aggregate reads.
+     */
+    private final ReentrantReadWriteLock aggregateLock = new ReentrantReadWriteLock();
+
+    /**
+     * Running totals of the market value, book value and commissions of all investments in Money micro-units.
+     */
+    private final LongAdder marketValue = new LongAdder();
+    private final LongAdder bookValue = new LongAdder();
+    private final LongAdder commissions = new LongAdder();
+
+    /**
+     * Default constructor that declares a new empty ConcurrentPortfolio object with
+     * 4 stripes per available processor.
+     */
+    public ConcurrentPortfolio() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor declares a new empty ConcurrentPortfolio object.
+     * @param stripeCount An integer value containing the least number of stripe locks, rounded up to a power of 2.
+     */
+    public ConcurrentPortfolio(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("ERROR: Number of stripes needs to be higher than 0.");
+        }
+
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Constructor declares a new ConcurrentPortfolio object holding copies of the investments of a Portfolio.
+     * @param portfolio A Portfolio object whose investments are copied, it must not be modified meanwhile.
+     */
+    public ConcurrentPortfolio(Portfolio portfolio) throws Exception {
+        this();
+        for (Investment investment : portfolio.getArray()) {
+            Investment copy = copy(investment);
+            String key = Portfolio.symbolKey(copy.getSymbol());
+
+            holdings.put(key, copy);
+            order.put(key, copy);
+            holdingChanged(copy);
+        }
+    }
+
+    /**
+     * Method performs a purchase operation, the same way as Portfolio.buy.
+     * Purchases of symbols of different stripes run in parallel.
+     * @param type String object containing the type for investment to be purchased
+     * @param symbol String object containing the symbol for investment to be purchased
+     * @param name String object containing the name for investment to be purchased
+     * @param quantity String object containing the integer quantity value for investment to be purchased
+     * @param price String object containing the double price value for investment to be purchased
+     * @return String object containing the purchased investment information.
+     */
+    public String buy(String type, String symbol, String name, String quantity, String price) throws Exception {
+        Portfolio.validateNums(quantity, price);
+
+        if (Portfolio.isNull(symbol) || Portfolio.isNull(name)) {
+            throw new Exception("Symbol and name can't be empty, please specify the " + type + ".");
+        }
+
+        boolean stock;
+        if (type.equalsIgnoreCase("stock") || type.equalsIgnoreCase("s")) {
+            stock = true;
+        }
+        else if (type.equalsIgnoreCase("mutual") || type.equalsIgnoreCase("m")
+        || type.equalsIgnoreCase("mutualfund") || type.equalsIgnoreCase("mutual fund")) {
+            stock = false;
+        }
+        else {
+            throw new Exception("ERROR: Invalid investment type input, try again.");
+        }
+
+        // parsed before locking, a failed parse leaves the portfolio unchanged
+        int shares = Integer.parseInt(quantity);
+        double cost = Double.parseDouble(price);
+        String key = Portfolio.symbolKey(symbol);
+        ReentrantLock stripe = stripe(key);
+
+        aggregateLock.readLock().lock();
+        stripe.lock();
+        try {
+            Investment investment = holdings.get(key);
+
+            if (investment == null) {
+                investment = stock ? new Stock() : new MutualFund();
+                investment.setSymbol(symbol);
+                investment.setName(name);
+                investment.buy(cost, shares);
+                holdingChanged(investment);
+
+                holdings.put(key, investment);
+                orderLock.lock();
+                try {
+                    order.put(key, investment);
+                }
+                finally {
+                    orderLock.unlock();
+                }
+                return investment.toString();
+            }
+
+            if (stock != investment instanceof Stock) {
+                throw new Exception((stock ? "ERROR" : "WARNING") + ": Symbol entered belongs to another investment type \"" +
+                investment.getClass().getSimpleName() + "\"");
+            }
+
+            holdingChanging(investment);
+            try {
+                investment.buy(cost, shares);
+            }
+            finally {
+                holdingChanged(investment);
+            }
+            return investment.toString();
+        }
+        finally {
+            stripe.unlock();
+            aggregateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method performs a sell operation, the same way as Portfolio.sell.
+     * The investment is removed once its quantity reaches 0. Sales of symbols of different stripes run in parallel.
+     * @param symbol String object containing the symbol for investment to be sold
+     * @param quantity String object containing the integer quantity value for investment to be sold
+     * @param price String object containing the double price value for investment to be sold
+     * @return String object containing the transaction information.
+     */
+    public String sell(String symbol, String quantity, String price) throws Exception {
+        Portfolio.validateNums(quantity, price);
+
+        if (symbol == null) {
+            throw new Exception("ERROR: Invalid investment symbol, investment doesn't" +
+            " exist in portfolio.");
+        }
+
+        String key = Portfolio.symbolKey(symbol);
+        ReentrantLock stripe = stripe(key);
+
+        aggregateLock.readLock().lock();
+        stripe.lock();
+        try {
+            Investment investment = holdings.get(key);
+            if (investment == null) {
+                throw new Exception("ERROR: Invalid investment symbol, investment doesn't" +
+                " exist in portfolio.");
+            }
+
+            holdingChanging(investment);
+            try {
+                investment.sell(Integer.parseInt(quantity), Double.parseDouble(price));
+            }
+            finally {
+                holdingChanged(investment);
+            }
+
+            String transaction = "Sold "+ quantity + " @ " + price + "$. New book value: "
+            + investment.getBookValue() + "$\n";
+
+            // branch deletes the investment if quantity owned reaches 0
+            if (investment.getQuantity() == 0) {
+                holdingChanging(investment);
+                holdings.remove(key);
+                orderLock.lock();
+                try {
+                    order.remove(key);
+                }
+                finally {
+                    orderLock.unlock();
+                }
+                return transaction;
+            }
+
+            return transaction + investment.toString();
+        }
+        finally {
+            stripe.unlock();
+            aggregateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method updates the price of an investment, for example from a price feed thread.
+     * @param symbol String object containing the symbol of the investment, cases are ignored.
+     * @param price A double value containing the new price, it can't be negative.
+     * @return String object containing the updated investment information.
+     */
+    public String updatePrice(String symbol, double price) throws Exception {
+        if (!(price >= 0) || !Money.fits(price)) {
+            throw new Exception("Invalid price. Try again");
+        }
+        if (symbol == null) {
+            throw new Exception("ERROR: Invalid investment symbol, investment doesn't" +
+            " exist in portfolio.");
+        }
+
+        String key = Portfolio.symbolKey(symbol);
+        ReentrantLock stripe = stripe(key);
+
+        aggregateLock.readLock().lock();
+        stripe.lock();
+        try {
+            Investment investment = holdings.get(key);
+            if (investment == null) {
+                throw new Exception("ERROR: Invalid investment symbol, investment doesn't" +
+                " exist in portfolio.");
+            }
+
+            holdingChanging(investment);
+            try {
+                investment.setPrice(price);
+            }
+            finally {
+                holdingChanged(investment);
+            }
+            return investment.toString();
+        }
+        finally {
+            stripe.unlock();
+            aggregateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method looks up an owned investment by its symbol, ignoring cases.
+     * @param symbol String object containing the symbol of the required investment.
+     * @return A copy of the Investment object taken between trades, null is returned if it isn't owned.
+     */
+    public Investment getInvestment(String symbol) throws Exception {
+        if (symbol == null) {
+            return null;
+        }
+
+        String key = Portfolio.symbolKey(symbol);
+        ReentrantLock stripe = stripe(key);
+
+        stripe.lock();
+        try {
+            Investment investment = holdings.get(key);
+            return investment == null ? null : copy(investment);
+        }
+        finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Method returns the number of investments owned.
+     * @return An integer value containing the number of investments.
+     */
+    public int size() {
+        return holdings.size();
+    }
+
+    /**
+     * Method returns the total gain on investments, trades wait until it's read.
+     * @return A double value containing the total gain on investments.
+     */
+    public double getGain() {
+        aggregateLock.writeLock().lock();
+        try {
+            return Money.toDouble(marketValue.sum() - commissions.sum() - bookValue.sum());
+        }
+        finally {
+            aggregateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method returns the total market value (price times quantity) of all investments.
+     * @return A double value containing the running total of the market value.
+     */
+    public double getMarketValue() {
+        aggregateLock.writeLock().lock();
+        try {
+            return Money.toDouble(marketValue.sum());
+        }
+        finally {
+            aggregateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method returns the total book value of all investments.
+     * @return A double value containing the running total of the book value.
+     */
+    public double getBookValue() {
+        aggregateLock.writeLock().lock();
+        try {
+            return Money.toDouble(bookValue.sum());
+        }
+        finally {
+            aggregateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method returns copies of the investments owned in the order they were added, taken between trades.
+     * @return An ArrayList containing copies of the Investment objects owned.
+     */
+    public ArrayList<Investment> getArray() throws Exception {
+        aggregateLock.writeLock().lock();
+        try {
+            ArrayList<Investment> investments = new ArrayList<>(order.size());
+            for (Investment investment : order.values()) {
+                investments.add(copy(investment));
+            }
+
+            return investments;
+        }
+        finally {
+            aggregateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method copies the investments owned into a Portfolio, which can be searched or saved
+     * while trading continues.
+     * @return A new Portfolio object holding copies of the investments taken between trades.
+     */
+    public Portfolio toPortfolio() throws Exception {
+        return new Portfolio(getArray());
+    }
+
+    /**
+     * Method returns the investments owned in the text format of Portfolio, taken between trades.
+     * @return A String object containing the information of every investment.
+     */
+    public String toString() {
+        aggregateLock.writeLock().lock();
+        try {
+            StringBuilder text = new StringBuilder();
+            for (Investment investment : order.values()) {
+                Portfolio.appendText(text, investment);
+            }
+
+            return text.toString();
+        }
+        finally {
+            aggregateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Private method finds the stripe lock guarding a symbol.
+     * @param key String object containing the lowercase symbol.
+     * @return The ReentrantLock object of the symbol.
+     */
+    private ReentrantLock stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Private method removes the contribution of an investment from the running totals before it's modified.
+     * @param investment An Investment object guarded by the stripe lock held by the caller.
+     */
+    private void holdingChanging(Investment investment) {
+        marketValue.add(-Money.multiply(investment.getPriceMicros(), investment.getQuantity()));
+        bookValue.add(-investment.getBookValueMicros());
+        commissions.add(investment instanceof Stock ? -Stock.COMMISSION_MICROS : -MutualFund.COMMISSION_MICROS);
+    }
+
+    /**
+     * Private method adds the contribution of a new or modified investment to the running totals.
+     * @param investment An Investment object guarded by the stripe lock held by the caller.
+     */
+    private void holdingChanged(Investment investment) {
+        marketValue.add(Money.multiply(investment.getPriceMicros(), investment.getQuantity()));
+        bookValue.add(investment.getBookValueMicros());
+        commissions.add(investment instanceof Stock ? Stock.COMMISSION_MICROS : MutualFund.COMMISSION_MICROS);
+    }
+
+    /**
+     * Private method copies an Investment object into a new object of the same type.
+     */
+    private static Investment copy(Investment investment) throws Exception {
+        if (investment instanceof Stock) {
+            return new Stock((Stock)investment);
+        }
+
+        return new MutualFund((MutualFund)investment);
+    }
+}
@@ -2,11 +2,18 @@ package ePortfolio;
 
 import javax.swing.*;
 import java.awt.event.*;
-import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.awt.*;
 
 /**
  * Represents a JFrame window for the ePortfolio program
+ * The portfolio is only used on a single worker thread so loading, saving and the commands
+ * don't block the event thread, their results are shown on the event thread once done.
  */
 public class GUI extends JFrame {
     // dimensions
@@ -19,6 +26,15 @@ public class GUI extends JFrame {
     private Portfolio myPortfolio; 
     private int investmentIndex = 0;
 
+    // runs every operation on myPortfolio in the order they were started
+    private final ExecutorService portfolioThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "portfolio-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // set on the worker thread before the next command if loading was cancelled, the partial portfolio isn't saved then
+    private volatile boolean loadCancelled = false;
+
 
 
     /**
@@ -29,6 +45,8 @@ public class GUI extends JFrame {
     public GUI(String fileName) {
         super("ePortfolio");
         myPortfolio = new Portfolio();
+        // snapshots let the update panel read investments on the event thread
+        myPortfolio.enableSnapshots();
         loadInvestments(fileName);
         
         setSize(WIDTH, HEIGHT);
@@ -91,9 +109,9 @@ public class GUI extends JFrame {
         getGain.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 resetPanels();
-                setGainField(gainPanel);
                 createMessages("Individual Gains");
-                setMessage(messagesPanel, myPortfolio.getIndividualGains());
+                runOperation(() -> Double.toString(myPortfolio.getGain()), gain -> setGainField(gainPanel, gain));
+                showResult(myPortfolio::getIndividualGains);
                 gainPanel.add(messagesPanel);
                 gainPanel.setVisible(true);
             }
@@ -117,17 +135,31 @@ public class GUI extends JFrame {
         // anonymous actionListener terminates program
         quit.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                // saves investments to a file in case fileName wasn't null
-                try {
-                    if (fileName != null) {
-                        myPortfolio.saveInvestments(fileName);
+                // no more commands are started, the save waits for the pending ones
+                getJMenuBar().getMenu(0).setEnabled(false);
+                setTitle("ePortfolio - Saving...");
+
+                SwingWorker<Void, Void> saver = new SwingWorker<Void, Void>() {
+                    protected Void doInBackground() throws Exception {
+                        // saves investments to a file in case fileName wasn't null
+                        if (fileName != null && !loadCancelled) {
+                            myPortfolio.saveInvestments(fileName);
+                        }
+                        return null;
                     }
-                }
-                catch (Exception exc) {
-                    // print exception message since program will terminate afetrwards
-                    System.out.println(exc.getMessage());
-                }
-                System.exit(0);
+
+                    protected void done() {
+                        try {
+                            get();
+                        }
+                        catch (InterruptedException | ExecutionException exc) {
+                            // print exception message since program will terminate afetrwards
+                            System.out.println(exc.getCause() != null ? exc.getCause().getMessage() : exc.getMessage());
+                        }
+                        System.exit(0);
+                    }
+                };
+                portfolioThread.execute(saver);
             }
         });
         
@@ -349,17 +381,16 @@ public class GUI extends JFrame {
         // anonymous actionListener performs purchase operation
         buyButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                try {
-                    // textfields are used to fill their respective parameters to 
-                    // call buy method on myPortfolio Portfolio object
-                    setMessage(messagesPanel, myPortfolio.buy(((String)typeChoice.getSelectedItem()).strip(), 
-                    symbolInput.getText().strip(), ((String)nameInput.getText()).strip(), 
-                    ((String)quantityInput.getText()).strip(), ((String)priceInput.getText()).strip()));
-                }
-                catch (Exception exc) {
-                    // incase an exception occurs, exception message is displayed
-                    setMessage(messagesPanel, exc.getMessage());
-                }
+                // textfields are used to fill their respective parameters to 
+                // call buy method on myPortfolio Portfolio object, read before leaving the event thread
+                String type = ((String)typeChoice.getSelectedItem()).strip();
+                String symbol = symbolInput.getText().strip();
+                String name = ((String)nameInput.getText()).strip();
+                String quantity = ((String)quantityInput.getText()).strip();
+                String price = ((String)priceInput.getText()).strip();
+
+                // incase an exception occurs, exception message is displayed
+                showResult(() -> myPortfolio.buy(type, symbol, name, quantity, price));
             }
         });
         buy.add(buyButton);
@@ -455,14 +486,12 @@ public class GUI extends JFrame {
         sellButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 // text fields are used for their respective parameters
-                try {
-                    setMessage(messagesPanel, myPortfolio.sell(symbolInput.getText().strip(),
-                    quantityInput.getText().strip(), priceInput.getText().strip()));
-                }
-                catch (Exception exc) {
-                    // exception message shown in messages text area
-                    setMessage(messagesPanel, exc.getMessage());
-                }
+                String symbol = symbolInput.getText().strip();
+                String quantity = quantityInput.getText().strip();
+                String price = priceInput.getText().strip();
+
+                // exception message shown in messages text area
+                showResult(() -> myPortfolio.sell(symbol, quantity, price));
             }
         });
         sell.add(sellButton);
@@ -544,16 +573,19 @@ public class GUI extends JFrame {
         // actionListener previews the name and symbol of the previous investment
         prevButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                ArrayList<Investment> investments = myPortfolio.getArray();
+                PortfolioSnapshot investments = myPortfolio.snapshot();
                 // fields are updated only if the current investment isn't the first
                 if (investments.size() > 0) {
                     if (investmentIndex > 0) {
                         investmentIndex--;
                         clearFields(price); // clear price field
                     }
+                    // the index is kept within the snapshot in case investments were sold meanwhile
+                    investmentIndex = Math.min(investmentIndex, investments.size() - 1);
 
-                    symbolInput.setText(investments.get(investmentIndex).getSymbol());
-                    nameInput.setText(investments.get(investmentIndex).getName());
+                    Investment investment = investments.get(investmentIndex);
+                    symbolInput.setText(investment.getSymbol());
+                    nameInput.setText(investment.getName());
                 }
             }
         });
@@ -568,15 +600,18 @@ public class GUI extends JFrame {
         // actionListener previews the name and symbol of the next investment
         nextButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                ArrayList<Investment> investments = myPortfolio.getArray();
+                PortfolioSnapshot investments = myPortfolio.snapshot();
                 // fields are updated only if the current investment isn't the last
                 if (investments.size() > 0) {
                     if (investmentIndex < investments.size() - 1) {
                         investmentIndex++;
                         clearFields(price);
                     }
-                    symbolInput.setText(investments.get(investmentIndex).getSymbol());
-                    nameInput.setText(investments.get(investmentIndex).getName());
+                    investmentIndex = Math.min(investmentIndex, investments.size() - 1);
+
+                    Investment investment = investments.get(investmentIndex);
+                    symbolInput.setText(investment.getSymbol());
+                    nameInput.setText(investment.getName());
                 }
             }
         });
@@ -591,15 +626,15 @@ public class GUI extends JFrame {
         // actionListener updates the price of the current investment 
         saveButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                try {
-                    if (myPortfolio.getArray().size() > 0)
-                        myPortfolio.updatePortfolio(priceInput.getText(), investmentIndex);
-                        setMessage(messagesPanel, myPortfolio.getArray().get(investmentIndex).toString());
-                }
-                catch (Exception exc) {
-                    // exception message shown in the messages text area
-                    setMessage(messagesPanel, exc.getMessage());
-                }
+                String newPrice = priceInput.getText();
+                int index = investmentIndex;
+
+                // exception message shown in the messages text area
+                showResult(() -> {
+                    if (!myPortfolio.snapshot().isEmpty())
+                        myPortfolio.updatePortfolio(newPrice, index);
+                    return myPortfolio.snapshot().get(index).toString();
+                });
             }
         });
         save.add(saveButton);
@@ -743,14 +778,12 @@ public class GUI extends JFrame {
         // it displays any exception that occurs
         searchButton.addActionListener( new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                try {
-                    setMessage(messagesPanel, myPortfolio.search(symbolInput.getText().strip(), 
-                    keywordsInput.getText().strip(), lowPriceInput.getText().strip(), 
-                    highPriceInput.getText().strip()));
-                }
-                catch (Exception exc) {
-                    setMessage(messagesPanel, exc.getMessage());
-                }
+                String symbol = symbolInput.getText().strip();
+                String keywords = keywordsInput.getText().strip();
+                String lowPrice = lowPriceInput.getText().strip();
+                String highPrice = highPriceInput.getText().strip();
+
+                showResult(() -> myPortfolio.search(symbol, keywords, lowPrice, highPrice));
             }
         });
         search.add(searchButton);
@@ -837,22 +870,66 @@ public class GUI extends JFrame {
      * Private method sets the gain field in gainPanel to the total gain on
      * investments in the myPortfolio Portfolio object. 
      * @param panel JPanel object searched for the required text field.
+     * @param gain String object containing the total gain.
      */
-    private void setGainField(JPanel panel) {
+    private void setGainField(JPanel panel, String gain) {
         Component [] components = panel.getComponents();
 
         // loops through all components in panel
         for (Component i : components) {
             if (i instanceof JTextField) {
-                ((JTextField)i).setText(Double.toString(myPortfolio.getGain()));
+                ((JTextField)i).setText(gain);
             }
             else if (i instanceof JPanel) {
                 // recursively call setGainField on JPanel objects within panel
-                setGainField((JPanel)i);
+                setGainField((JPanel)i, gain);
             }
         }
     }
 
+    /**
+     * Private method runs an operation on myPortfolio in the worker thread and passes its
+     * result to display on the event thread. Exception messages are shown in the messages
+     * panel that was shown when the operation started.
+     * @param operation A Callable run on the worker thread.
+     * @param display A Consumer run on the event thread with the result of operation.
+     * @return The SwingWorker running operation, it can be cancelled.
+     */
+    private <T> SwingWorker<T, Void> runOperation(Callable<T> operation, Consumer<T> display) {
+        JPanel messages = messagesPanel;
+
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            protected T doInBackground() throws Exception {
+                return operation.call();
+            }
+
+            protected void done() {
+                try {
+                    display.accept(get());
+                }
+                catch (CancellationException | InterruptedException exc) {
+                    // nothing to show for cancelled operations
+                }
+                catch (ExecutionException exc) {
+                    setMessage(messages, exc.getCause().getMessage());
+                }
+            }
+        };
+        portfolioThread.execute(worker);
+
+        return worker;
+    }
+
+    /**
+     * Private method runs an operation on myPortfolio in the worker thread and shows its
+     * message in the messages panel that was shown when the operation started.
+     * @param operation A Callable returning the message, run on the worker thread.
+     */
+    private void showResult(Callable<String> operation) {
+        JPanel messages = messagesPanel;
+        runOperation(operation, message -> setMessage(messages, message));
+    }
+
     /**
      * Private method clicks a button with text that matches label. 
      * @param panel JPanel object containing the button component
@@ -916,16 +993,56 @@ public class GUI extends JFrame {
 
     /**
      * Method loads investments from a file to arrayList attribute of myPortfolio object
+     * The file is loaded on the worker thread, a progress dialog shown for long loads
+     * can cancel it. Commands started meanwhile run once loading is done.
      * @param fileName String object containing the name of the file used for loading investments.
      */
     public void loadInvestments (String fileName) {
-        try {
-            myPortfolio.loadInvestments(fileName);
-        }
-        catch(Exception e) {
-            // ignore exception if loading investmentsFailed (file will be overrident end of program)
-            System.out.println(e.getMessage());
-        }
+        ProgressMonitor monitor = new ProgressMonitor(this, "Loading investments from " + fileName, null, 0, 100);
+
+        SwingWorker<Void, Void> loader = new SwingWorker<Void, Void>() {
+            protected Void doInBackground() throws Exception {
+                try {
+                    myPortfolio.loadInvestments(fileName, this::setProgress);
+                }
+                finally {
+                    // the investments loaded so far stay, but they must not replace the file
+                    // a cancel interrupting file I/O surfaces as an IOException, so the state is checked instead
+                    if (isCancelled()) {
+                        loadCancelled = true;
+                    }
+                }
+                return null;
+            }
+
+            protected void done() {
+                monitor.close();
+                if (isCancelled()) {
+                    loadCancelled = true;
+                }
+                try {
+                    get();
+                }
+                catch (CancellationException | InterruptedException e) {
+                    System.out.println("Loading investments cancelled.");
+                }
+                catch (ExecutionException e) {
+                    // ignore exception if loading investmentsFailed (file will be overrident end of program)
+                    System.out.println(e.getCause().getMessage());
+                }
+            }
+        };
+
+        // the monitor is only checked for cancellation when the progress changes
+        loader.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                monitor.setProgress((Integer)event.getNewValue());
+                if (monitor.isCanceled()) {
+                    loader.cancel(true);
+                }
+            }
+        });
+        portfolioThread.execute(loader);
     }
 
     public static void main(String[] args) {
@@ -939,5 +1056,15 @@ public class GUI extends JFrame {
             gui = new GUI(null);
         }
         gui.setVisible(true);
+
+        // operation metrics are published over JMX when enabled with -DePortfolio.metrics=true
+        if (PortfolioMetrics.get().isEnabled()) {
+            try {
+                PortfolioMetrics.get().register();
+            }
+            catch (Exception e) {
+                System.err.println("Failed to register the portfolio metrics: " + e.getMessage());
+            }
+        }
     }
 }
@@ -0,0 +1,452 @@
+package ePortfolio;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ *  HoldingBitmap class represents a compressed set of holding IDs used as a posting list by Portfolio indices.
+ *  IDs are split into chunks of 65536 by their high 16 bits. Each chunk is stored as a sorted array while it's
+ *  sparse and as a 1024 word bitmap once it holds more than 4096 IDs, so intersections of common keywords
+ *  are computed a 64 bit word at a time.
+ */
+class HoldingBitmap {
+    /**
+     * Cardinality above which an array chunk is converted to a bitmap chunk.
+     */
+    private static final int ARRAY_LIMIT = 4096;
+
+    /**
+     * Number of 64 bit words in a bitmap chunk.
+     */
+    private static final int WORDS = 1024;
+
+    /**
+     * Sorted high 16 bits of the chunks in the set.
+     */
+    private int [] keys = new int[4];
+
+    /**
+     * Chunks of the set, the chunk at index i holds the IDs with high bits keys[i].
+     */
+    private Chunk [] chunks = new Chunk[4];
+
+    /**
+     * Number of chunks in use.
+     */
+    private int size = 0;
+
+    /**
+     * Default constructor that declares a new empty HoldingBitmap object.
+     */
+    HoldingBitmap() {
+
+    }
+
+    /**
+     * Copy Constructor declares a new HoldingBitmap object containing the same IDs as other.
+     * @param other A HoldingBitmap object containing the IDs which will be copied.
+     */
+    HoldingBitmap(HoldingBitmap other) {
+        this.keys = Arrays.copyOf(other.keys, Math.max(other.size, 1));
+        this.chunks = new Chunk[keys.length];
+        this.size = other.size;
+
+        for (int i = 0; i < size; i++) {
+            chunks[i] = other.chunks[i].copy();
+        }
+    }
+
+    /**
+     * Method adds a holding ID to the set.
+     * @param id A non-negative integer value containing the holding ID to be added.
+     */
+    void add(int id) {
+        int key = id >>> 16;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+
+        // branch inserts a new chunk keeping the keys sorted
+        if (index < 0) {
+            index = -index - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                chunks = Arrays.copyOf(chunks, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(chunks, index, chunks, index + 1, size - index);
+            keys[index] = key;
+            chunks[index] = new ArrayChunk();
+            size++;
+        }
+
+        chunks[index] = chunks[index].add((char)id);
+    }
+
+    /**
+     * Method removes a holding ID from the set, nothing happens if the ID isn't in the set.
+     * @param id An integer value containing the holding ID to be removed.
+     */
+    void remove(int id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return;
+        }
+
+        chunks[index] = chunks[index].remove((char)id);
+        if (chunks[index].cardinality() == 0) {
+            removeChunk(index);
+        }
+    }
+
+    /**
+     * Method checks if a holding ID is in the set.
+     * @param id An integer value containing the holding ID to be checked.
+     * @return A boolean value that indicates the ID is in the set.
+     */
+    boolean contains(int id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        return index >= 0 && chunks[index].contains((char)id);
+    }
+
+    /**
+     * Method counts the holding IDs in the set.
+     * @return An integer value containing the number of IDs in the set.
+     */
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += chunks[i].cardinality();
+        }
+
+        return cardinality;
+    }
+
+    /**
+     * Method checks if the set is empty.
+     * @return A boolean value that indicates the set contains no IDs.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method intersects the calling set with another set, only IDs found in both sets are kept.
+     * Chunks missing from either set are dropped without being visited.
+     * @param other A HoldingBitmap object containing the IDs to be kept.
+     */
+    void and(HoldingBitmap other) {
+        int kept = 0;
+        int j = 0;
+
+        // keys of both sets are sorted, so matching chunks are found by merging them
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+
+            if (j == other.size) {
+                break;
+            }
+            else if (other.keys[j] == keys[i]) {
+                Chunk chunk = chunks[i].and(other.chunks[j]);
+                if (chunk.cardinality() > 0) {
+                    keys[kept] = keys[i];
+                    chunks[kept] = chunk;
+                    kept++;
+                }
+            }
+        }
+
+        Arrays.fill(chunks, kept, size, null);
+        size = kept;
+    }
+
+    /**
+     * Method returns an iterator over the holding IDs of the set in ascending order.
+     * The set must not be modified while the iterator is used.
+     * @return A PrimitiveIterator.OfInt object over the IDs of the set.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunkIndex = 0;
+            // next low 16 bits to be checked in the current chunk
+            private int low = 0;
+            private int next = advance();
+
+            private int advance() {
+                while (chunkIndex < size) {
+                    int found = chunks[chunkIndex].next(low);
+                    if (found >= 0) {
+                        low = found + 1;
+                        return keys[chunkIndex] << 16 | found;
+                    }
+
+                    chunkIndex++;
+                    low = 0;
+                }
+
+                return -1;
+            }
+
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+
+                int current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Private method removes the chunk at index, shifting later chunks down.
+     * @param index An integer value containing the index of the chunk to be removed.
+     */
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+        size--;
+        chunks[size] = null;
+    }
+
+    /**
+     * Represents the low 16 bits of the IDs sharing the same high 16 bits.
+     * Mutators return the chunk holding the result, which can be a chunk of the other representation.
+     */
+    private static abstract class Chunk {
+        abstract Chunk add(char low);
+
+        abstract Chunk remove(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int cardinality();
+
+        /**
+         * Returns the smallest value in the chunk higher than or equal to from, -1 if there is none.
+         */
+        abstract int next(int from);
+
+        abstract Chunk and(Chunk other);
+
+        abstract Chunk copy();
+    }
+
+    /**
+     * Chunk stored as a sorted array of values, used while the chunk holds at most 4096 values.
+     */
+    private static final class ArrayChunk extends Chunk {
+        private char [] values;
+        private int cardinality;
+
+        ArrayChunk() {
+            this(new char[4], 0);
+        }
+
+        ArrayChunk(char [] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        Chunk add(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                return this;
+            }
+
+            // convert to a bitmap once the array would outgrow the fixed size bitmap
+            if (cardinality == ARRAY_LIMIT) {
+                return new BitmapChunk(this).add(low);
+            }
+
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(Math.max(cardinality * 2, 4), ARRAY_LIMIT));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+            cardinality++;
+            return this;
+        }
+
+        Chunk remove(char low) {
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+
+            return this;
+        }
+
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        int cardinality() {
+            return cardinality;
+        }
+
+        int next(int from) {
+            if (from > 0xFFFF) {
+                return -1;
+            }
+
+            int index = Arrays.binarySearch(values, 0, cardinality, (char)from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+
+            return index < cardinality ? values[index] : -1;
+        }
+
+        Chunk and(Chunk other) {
+            char [] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+
+            if (other instanceof ArrayChunk) {
+                // merge both sorted arrays
+                ArrayChunk array = (ArrayChunk)other;
+                int i = 0, j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    }
+                    else if (values[i] > array.values[j]) {
+                        j++;
+                    }
+                    else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            else {
+                // probe the bitmap for every value of the array
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+
+            return new ArrayChunk(result, count);
+        }
+
+        Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+    }
+
+    /**
+     * Chunk stored as a bitmap of 65536 bits, used once the chunk holds more than 4096 values.
+     */
+    private static final class BitmapChunk extends Chunk {
+        private final long [] words;
+        private int cardinality;
+
+        BitmapChunk(long [] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        BitmapChunk(ArrayChunk array) {
+            this(new long[WORDS], 0);
+            for (int i = 0; i < array.cardinality; i++) {
+                add(array.values[i]);
+            }
+        }
+
+        Chunk add(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinality++;
+            }
+
+            return this;
+        }
+
+        Chunk remove(char low) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                words[low >>> 6] &= ~bit;
+                cardinality--;
+            }
+
+            // convert back to an array once the bitmap is sparse
+            return cardinality <= ARRAY_LIMIT ? toArray() : this;
+        }
+
+        boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        int cardinality() {
+            return cardinality;
+        }
+
+        int next(int from) {
+            if (from > 0xFFFF) {
+                return -1;
+            }
+
+            int index = from >>> 6;
+            long word = words[index] & -1L << from;
+            while (word == 0) {
+                if (++index == WORDS) {
+                    return -1;
+                }
+                word = words[index];
+            }
+
+            return index << 6 | Long.numberOfTrailingZeros(word);
+        }
+
+        Chunk and(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.and(this);
+            }
+
+            // intersect both bitmaps a word at a time
+            long [] otherWords = ((BitmapChunk)other).words;
+            long [] result = new long[WORDS];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+
+            BitmapChunk chunk = new BitmapChunk(result, count);
+            return count <= ARRAY_LIMIT ? chunk.toArray() : chunk;
+        }
+
+        Chunk copy() {
+            return new BitmapChunk(words.clone(), cardinality);
+        }
+
+        /**
+         * Converts the bitmap into an array chunk holding the same values.
+         */
+        private ArrayChunk toArray() {
+            char [] values = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char)(i << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+
+            return new ArrayChunk(values, count);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ePortfolio;
+
+/**
+ *  HoldingStore interface represents a storage engine keeping the state of the investments owned by a Portfolio.
+ *  Investments are addressed by their holding ID, IDs are allocated and released by the Portfolio.
+ */
+interface HoldingStore {
+    /**
+     * Method stores the state of an investment under a free holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param investment An Investment object containing the state to be stored.
+     */
+    void add(int id, Investment investment);
+
+    /**
+     * Method releases the state stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     */
+    void remove(int id);
+
+    /**
+     * Method returns the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return An Investment object with the state of the investment.
+     */
+    Investment get(int id);
+
+    /**
+     * Method returns a copy of the investment stored under a holding ID that later changes don't modify.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return A detached Investment object with the state of the investment.
+     */
+    Investment copyOf(int id);
+
+    /**
+     * Method checks if the investment stored under a holding ID is a Stock.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return A boolean value that is true for a Stock and false for a MutualFund.
+     */
+    boolean isStock(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The symbol String of the investment.
+     */
+    String getSymbol(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The name String of the investment.
+     */
+    String getName(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The integer quantity owned of the investment.
+     */
+    int getQuantity(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The double price of the investment.
+     */
+    double getPrice(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The long price of the investment in Money micro-units.
+     */
+    long getPriceMicros(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The double book value of the investment.
+     */
+    double getBookValue(int id);
+
+    /**
+     * @param id An integer value containing the holding ID of the investment.
+     * @return The long book value of the investment in Money micro-units.
+     */
+    long getBookValueMicros(int id);
+
+    /**
+     * Method computes the gain on the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return A double value containing the gain of the investment.
+     */
+    double getGain(int id);
+
+    /**
+     * Method computes the exact gain on the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return A long value containing the gain of the investment in Money micro-units.
+     */
+    long getGainMicros(int id);
+
+    /**
+     * Method performs a purchase operation on the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param price A long value containing the purchase price in Money micro-units.
+     * @param quantity An integer value containing the purchased quantity.
+     */
+    void buy(int id, long price, int quantity) throws Exception;
+
+    /**
+     * Method performs a sell operation on the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param quantity An integer value containing the sold quantity.
+     * @param price A long value containing the selling price in Money micro-units.
+     */
+    void sell(int id, int quantity, long price) throws Exception;
+
+    /**
+     * Method updates the price of the investment stored under a holding ID.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param price A long value containing the new price in Money micro-units.
+     */
+    void setPrice(int id, long price) throws Exception;
+
+    /**
+     * Method computes the total gain on all stored investments.
+     * @return A long value containing the exact sum of the gains in Money micro-units.
+     */
+    long getTotalGainMicros();
+
+    /**
+     * Method copies the store so the copy can be modified independently.
+     * @return A HoldingStore object of the same engine containing the same investments.
+     */
+    HoldingStore copy();
+}
@@ -17,17 +17,17 @@ public abstract class Investment {
      */
     protected int quantity;
     /**
-     * A double variable attribute containing the last updted price of the Investment
+     * A long variable attribute containing the last updted price of the Investment in Money micro-units.
     */
-    protected double price;
+    protected long price;
     /**
-     *  A double variable attribute containing the last updated bookvalue of the Investment.
+     *  A long variable attribute containing the last updated bookvalue of the Investment in Money micro-units.
      */
-    protected double bookValue;
+    protected long bookValue;
     /**
-     * A double variable attribute containing the last updated gain of the Investment.
+     * A long variable attribute containing the last updated gain of the Investment in Money micro-units.
      */
-    protected double gain;  
+    protected long gain;  
 
     /**
      * This constructor declares a new Investment object and initializes its symbol, name and price.
@@ -41,10 +41,10 @@ public abstract class Investment {
         try {
             this.name = name;
             this.symbol = symbol;
-            this.price = price; 
+            this.price = Money.toMicros(price); 
             quantity = 0;
-            bookValue = 0.0;
-            gain = 0.0;
+            bookValue = 0;
+            gain = 0;
         }
         catch (Exception e) {
             throw new Exception ("Unable to declare investment: " + e.getMessage());
@@ -68,7 +68,8 @@ public abstract class Investment {
      * @param other An Investment object containing the attributes which will be copied.
      */
     public Investment (Investment other) throws Exception{
-        this(((Investment)other).symbol, ((Investment)other).name, ((Investment)other).price);
+        this(((Investment)other).symbol, ((Investment)other).name);
+        this.price = ((Investment)other).price;
         this.quantity = ((Investment)other).quantity;
         this.bookValue = ((Investment)other).bookValue;
         this.gain = ((Investment)other).gain;
@@ -103,7 +104,7 @@ public abstract class Investment {
      * @param bookValue A double value containing the new bookValue of the Investment.
      */
     public void setBookValue (double bookValue) {
-        this.bookValue = bookValue;
+        this.bookValue = Money.toMicros(bookValue);
     }
 
     /**
@@ -125,6 +126,19 @@ public abstract class Investment {
      * @param price A double value containing the new price of the Investment.
      */
     public void updatePrice(double price) throws Exception {
+        if (price >= 0) {
+            updatePriceMicros(Money.toMicros(price));
+        }
+        else {
+            throw new Exception("Invalid price.");
+        }
+    }
+
+    /**
+     * A mutator method updating the price of the Investment in micro-units.
+     * @param price A long value containing the new price of the Investment in Money micro-units.
+     */
+    public void updatePriceMicros(long price) throws Exception {
         if (price >= 0) {
             this.price = price;
         }
@@ -138,7 +152,7 @@ public abstract class Investment {
      * @param gain A double value containing the new gain of the Investment.
      */
     public void setGain (double gain) {
-        this.gain = gain;
+        this.gain = Money.toMicros(gain);
     }
 
     /**
@@ -175,6 +189,14 @@ public abstract class Investment {
      * @return The double price attribute of the calling Investment object.
      */ 
     public double getPrice() {
+        return Money.toDouble(price);
+    }
+
+    /**
+     * An accessor method that reads the price of the Investment in micro-units.
+     * @return The long price attribute of the calling Investment object in Money micro-units.
+     */ 
+    public long getPriceMicros() {
         return price;
     }
 
@@ -191,6 +213,14 @@ public abstract class Investment {
     * @return The double bookValue attribute of the calling Investment object.
     */ 
     public double getBookValue() {
+        return Money.toDouble(bookValue);
+    }
+
+    /**
+    * An accessor method that reads the book value of the Investment in micro-units.
+    * @return The long bookValue attribute of the calling Investment object in Money micro-units.
+    */ 
+    public long getBookValueMicros() {
         return bookValue;
     }
 
@@ -200,6 +230,12 @@ public abstract class Investment {
      */
     public abstract double getGain();
 
+    /**
+     * Abstract method computes the value of gain attribute of the calling Investment object in micro-units.
+     * @return A long variable containing the updated gain of the Investment in Money micro-units.
+     */
+    public abstract long getGainMicros();
+
     /**
      * This method performs a purchase operation on the calling Investment object.
      * The quantity is added to the existing quantity attribute.
@@ -209,7 +245,8 @@ public abstract class Investment {
      */
     public void buy(int quantity) throws Exception {
         try {
-            this.buy(price, quantity);
+            // the price is already in micro-units
+            this.buyMicros(price, quantity);
         }
         catch (Exception e) { // pass exception to the calling method
             throw new Exception(e.getMessage());
@@ -222,29 +259,45 @@ public abstract class Investment {
      * The quantity is added to the existing quantity attribute.
      * The bookValue attribute is updated by adding the book value of the purchase.
      * The gain on investment attribute is updated using the new quantity.  
-     * @param price A double varianle containing the required purchase price of the Investment.
+     * @param price A double variable containing the required purchase price of the Investment.
      * @param quantity An intger variable containing the required purchase quantity of the Investment. 
      */
     public void buy(double price, int quantity) throws Exception {
-        // braanch checks if the quantity is not negative and terminates function if entered
+        // branch checks if the quantity is not negative and terminates function if entered
         if (!isValidQuantity(quantity)) {
             return;
         }
+        else if (!(price >= 0)) { // the price is checked before it's converted to micro-units
+            throw new Exception("Invalid price.");
+        }
 
-        this.quantity += quantity;
-        this.bookValue += (price * quantity);
-        
-        if (this instanceof Stock) {
-            this.bookValue += 9.99;
+        this.buyMicros(Money.toMicros(price), quantity);
+    }
+
+    /**
+     * This method performs a purchase operation on the calling Investment object with a price in micro-units.
+     * The book value is updated with exact fixed-point arithmetic.
+     * @param price A long variable containing the required purchase price of the Investment in Money micro-units.
+     * @param quantity An integer variable containing the required purchase quantity of the Investment.
+     */
+    public void buyMicros(long price, int quantity) throws Exception {
+        // branch checks if the quantity is not negative and terminates function if entered
+        if (!isValidQuantity(quantity)) {
+            return;
         }
-        
-        try {
-            this.setPrice(price);
+        else if (price < 0) {
+            throw new Exception("Invalid price.");
         }
-        catch (Exception e) {
-            throw new Exception(e.getMessage());
+
+        long bookValue = Math.addExact(this.bookValue, Money.multiply(price, quantity));
+        if (this instanceof Stock) {
+            bookValue = Math.addExact(bookValue, Stock.COMMISSION_MICROS);
         }
 
+        this.quantity = Math.addExact(this.quantity, quantity);
+        this.bookValue = bookValue;
+        this.price = price;
+        this.getGainMicros();
     }
 
     /**
@@ -264,17 +317,38 @@ public abstract class Investment {
         else if (quantity > this.quantity) { // insufficient owned amount exception
             throw new Exception("ERROR: Can't sell a higher quantity than owned. Try again.");
         }
+        else if (!(price >= 0)) { // the price is checked before it's converted to micro-units
+            throw new Exception("Invalid price.");
+        }
 
-        // update bookvalue to the value of remaining quantity
-        this.setBookValue(bookValue * (this.quantity - quantity) / this.quantity);
-        try {
-            this.setQuantity(this.quantity - quantity);
-            this.setPrice(price);
+        this.sellMicros(quantity, Money.toMicros(price));
+    }
+
+    /**
+     * This method performs a sell operation on the calling Investment object with a price in micro-units.
+     * The book value of the remaining quantity is computed with exact fixed-point arithmetic.
+     * @param quantity An integer variable containing the required selling quantity of the Investment.
+     * @param price A long variable containing the selling price in Money micro-units.
+     */
+    public void sellMicros(int quantity, long price) throws Exception {
+        // branch checks if quantity is valid and there is a sufficient quantity to sell
+        if (!isValidQuantity(quantity)) {
+            return;
         }
-        catch (Exception e) {
-            // exception should be handled by the calling method
-            throw new Exception(e.getMessage());
+        else if (quantity > this.quantity) { // insufficient owned amount exception
+            throw new Exception("ERROR: Can't sell a higher quantity than owned. Try again.");
+        }
+        else if (price < 0) {
+            throw new Exception("Invalid price.");
         }
+
+        // update bookvalue to the value of remaining quantity, nothing is left to scale if nothing is owned
+        if (this.quantity > 0) {
+            this.bookValue = Money.scale(bookValue, this.quantity - quantity, this.quantity);
+        }
+        this.quantity -= quantity;
+        this.price = price;
+        this.getGainMicros();
     }
 
     /**
@@ -287,13 +361,30 @@ public abstract class Investment {
      */
     public void sell(int quantity) throws Exception {
         try {
-            this.sell(quantity, price);
+            // the price is already in micro-units
+            this.sellMicros(quantity, price);
         }
         catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
+    /**
+     * Method copies the calling Investment object into a new object of the same type.
+     * @return A new Stock or MutualFund object with the same attribute values.
+     */
+    Investment copy() {
+        Investment copy = this instanceof Stock ? new Stock() : new MutualFund();
+
+        copy.symbol = symbol;
+        copy.name = name;
+        copy.quantity = quantity;
+        copy.price = price;
+        copy.bookValue = bookValue;
+        copy.gain = gain;
+        return copy;
+    }
+
     /**
      * Method checks if quantity is valid.
      * It returns true if quantity is positive or 0
@@ -0,0 +1,280 @@
+package ePortfolio;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ *  InvestmentFileReader class reads the text format written by Portfolio.saveInvestments through MappedText.
+ *  Every line is scanned once, the bytes before the first quote are dispatched with a switch on each byte
+ *  so keys are found anywhere like the Scanner based loader did, and numbers are parsed straight from the
+ *  mapped bytes, only symbols and names become Strings.
+ *  The results are the same as the Scanner based loader it replaces, including the lines it ignores and
+ *  the investments it kept when a line failed.
+ */
+class InvestmentFileReader {
+    /**
+     * Charset of the file, the default charset is used like Scanner does.
+     */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /**
+     * Keys of a line, in the order the Scanner based loader checked them.
+     */
+    private static final int TYPE = 0;
+    private static final int SYMBOL = 1;
+    private static final int NAME = 2;
+    private static final int QUANTITY = 3;
+    private static final int PRICE = 4;
+    private static final int BOOK_VALUE = 5;
+    private static final int NO_KEY = 6;
+
+    /**
+     * Consumer receiving every investment once all of its attributes were read.
+     */
+    private Consumer<Investment> consumer;
+
+    /**
+     * Investment whose attributes are being read.
+     */
+    private Investment investment = null;
+
+    /**
+     * True once a type other than Stock or MutualFund was read, the rest of the file is ignored.
+     */
+    private boolean stopped = false;
+
+    /**
+     * Constructor declares a new InvestmentFileReader object passing investments to a consumer.
+     * @param consumer A Consumer receiving every investment read.
+     */
+    InvestmentFileReader(Consumer<Investment> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Method reads every investment of a file.
+     * @param fileName String object containing the name of the file.
+     */
+    void read(String fileName) throws Exception {
+        read(fileName, null);
+    }
+
+    /**
+     * Method reads every investment of a file, reporting its progress.
+     * Reading stops with an InterruptedException once the calling thread is interrupted.
+     * The investments read before a failure are kept, including the one whose attributes were being read,
+     * since the Scanner based loader added every investment as soon as its type was read.
+     * @param fileName String object containing the name of the file.
+     * @param progress An IntConsumer receiving the percentage of the file read, may be null.
+     */
+    void read(String fileName, IntConsumer progress) throws Exception {
+        try {
+            MappedText.readLines(fileName, this::readLine, progress);
+        }
+        finally {
+            // add the last investment in the file
+            if (investment != null && !stopped) {
+                Investment last = investment;
+                investment = null;
+                consumer.accept(last);
+            }
+        }
+    }
+
+    /**
+     * Private method reads a single key = "value" line.
+     * @param buffer A ByteBuffer object containing the line.
+     * @param start An integer value containing the index of the first byte of the line.
+     * @param end An integer value containing the index after the last byte of the line.
+     */
+    private void readLine(ByteBuffer buffer, int start, int end) throws Exception {
+        if (stopped) {
+            return;
+        }
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+
+        // the value is between the first and second quote, or the end of the line
+        int quote = indexOf(buffer, start, end, (byte)'"');
+        int valueStart = quote + 1;
+        int valueEnd = quote < 0 ? end : indexOf(buffer, valueStart, end, (byte)'"');
+        if (valueEnd < 0) {
+            valueEnd = end;
+        }
+
+        // keys are found anywhere before the first quote, the key the Scanner based loader checked first wins
+        int keysEnd = quote < 0 ? end : quote;
+        int key = NO_KEY;
+        for (int i = start; i < keysEnd && key != TYPE; i++) {
+            key = Math.min(key, keyAt(buffer, i, keysEnd));
+        }
+
+        switch (key) {
+            case TYPE:
+                readType(buffer, valueStart, valueEnd, hasValue(buffer, quote, end));
+                break;
+            case SYMBOL:
+                current(buffer, quote, end).setSymbol(string(buffer, valueStart, valueEnd));
+                break;
+            case NAME:
+                current(buffer, quote, end).setName(string(buffer, valueStart, valueEnd));
+                break;
+            case QUANTITY:
+                current(buffer, quote, end).setQuantity(MappedText.parseInt(buffer,
+                MappedText.skipSpaces(buffer, valueStart, valueEnd), MappedText.trimSpaces(buffer, valueStart, valueEnd)));
+                break;
+            case PRICE:
+                current(buffer, quote, end).updatePrice(MappedText.parseDouble(buffer,
+                MappedText.skipSpaces(buffer, valueStart, valueEnd), MappedText.trimSpaces(buffer, valueStart, valueEnd)));
+                break;
+            case BOOK_VALUE:
+                current(buffer, quote, end).setBookValue(MappedText.parseDouble(buffer,
+                MappedText.skipSpaces(buffer, valueStart, valueEnd), MappedText.trimSpaces(buffer, valueStart, valueEnd)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Private method finds the key = starting at an index, with a switch on the byte at the index.
+     * @return An integer value containing the key, or NO_KEY if none starts at the index.
+     */
+    private static int keyAt(ByteBuffer buffer, int index, int end) {
+        switch (lowerCase(buffer.get(index))) {
+            case 't':
+                // the type key is case sensitive
+                return matches(buffer, index, end, "type = ", false) ? TYPE : NO_KEY;
+            case 's':
+                return matches(buffer, index, end, "symbol = ", true) ? SYMBOL : NO_KEY;
+            case 'n':
+                return matches(buffer, index, end, "name = ", true) ? NAME : NO_KEY;
+            case 'q':
+                return matches(buffer, index, end, "quantity = ", true) ? QUANTITY : NO_KEY;
+            case 'p':
+                return matches(buffer, index, end, "price = ", true) ? PRICE : NO_KEY;
+            case 'b':
+                return matches(buffer, index, end, "bookvalue = ", true) ? BOOK_VALUE : NO_KEY;
+            default:
+                return NO_KEY;
+        }
+    }
+
+    /**
+     * Private method checks if a keyword starts at an index before end.
+     */
+    private static boolean matches(ByteBuffer buffer, int index, int end, String keyword, boolean ignoreCase) {
+        return index + keyword.length() <= end && equals(buffer, index, index + keyword.length(), keyword, ignoreCase);
+    }
+
+    /**
+     * Private method starts a new investment, the previous investment is passed to the consumer.
+     */
+    private void readType(ByteBuffer buffer, int start, int end, boolean hasValue) throws Exception {
+        if (investment != null) {
+            Investment previous = investment;
+            investment = null;
+            consumer.accept(previous);
+        }
+        if (!hasValue) {
+            throw new Exception("Missing value.");
+        }
+
+        if (contains(buffer, start, end, "stock")) {
+            investment = new Stock();
+        }
+        else if (contains(buffer, start, end, "mutualfund")) {
+            investment = new MutualFund();
+        }
+        else {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Private method returns the investment whose attributes are being read.
+     * Attribute lines without a value or before the first type line fail the same way the Scanner based loader did.
+     */
+    private Investment current(ByteBuffer buffer, int quote, int end) throws Exception {
+        if (investment == null || !hasValue(buffer, quote, end)) {
+            throw new Exception("Attribute without an investment.");
+        }
+
+        return investment;
+    }
+
+    /**
+     * Private method checks if a line has a value, splitting it by quotes gives at least 2 tokens
+     * only if a byte other than a quote follows the first quote.
+     */
+    private static boolean hasValue(ByteBuffer buffer, int quote, int end) {
+        if (quote < 0) {
+            return false;
+        }
+
+        for (int i = quote + 1; i < end; i++) {
+            if (buffer.get(i) != '"') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int indexOf(ByteBuffer buffer, int start, int end, byte b) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Private method compares bytes to an ASCII keyword, optionally ignoring cases.
+     */
+    private static boolean equals(ByteBuffer buffer, int start, int end, String keyword, boolean ignoreCase) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < keyword.length(); i++) {
+            byte b = buffer.get(start + i);
+            if ((ignoreCase ? lowerCase(b) : b) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Private method checks if bytes contain a lowercase ASCII keyword ignoring cases.
+     */
+    private static boolean contains(ByteBuffer buffer, int start, int end, String keyword) {
+        for (int i = start; i + keyword.length() <= end; i++) {
+            if (equals(buffer, i, i + keyword.length(), keyword, true)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String string(ByteBuffer buffer, int start, int end) {
+        byte [] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        return new String(bytes, CHARSET);
+    }
+
+    private static byte lowerCase(byte c) {
+        return c >= 'A' && c <= 'Z' ? (byte)(c + ('a' - 'A')) : c;
+    }
+}
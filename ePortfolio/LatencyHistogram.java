@@ -0,0 +1,138 @@
+package ePortfolio;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  LatencyHistogram class counts durations in logarithmic buckets without locking.
+ *  Every power of 2 is split into 8 linear sub-buckets, so a duration is reported within 12.5% of its value
+ *  from 1 nanosecond up to about 18 minutes, longer durations share the last bucket.
+ */
+class LatencyHistogram {
+    /**
+     * Number of bits choosing the sub-bucket inside a power of 2.
+     */
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Highest power of 2 counted in its own buckets.
+     */
+    private static final int MAX_EXPONENT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Default constructor that declares a new empty LatencyHistogram object.
+     */
+    LatencyHistogram() {
+
+    }
+
+    /**
+     * Method counts a duration.
+     * @param nanos A long value containing the duration in nanoseconds.
+     */
+    void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Method copies the bucket counts, counts recorded meanwhile may or may not be included.
+     * @return An array of long values containing the count of every bucket.
+     */
+    long [] counts() {
+        long [] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+
+        return copy;
+    }
+
+    /**
+     * An accessor method that reads the sum of the durations counted.
+     * @return The long sum of the durations in nanoseconds.
+     */
+    long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * An accessor method that reads the longest duration counted.
+     * @return The long duration in nanoseconds, 0 if nothing was counted.
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Method empties the histogram.
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Method finds the duration below which a share of the counted durations fall.
+     * @param counts An array of long values containing the bucket counts copied by counts.
+     * @param percentile A double value between 0 and 100.
+     * @return A long value containing the highest duration of the bucket holding the percentile, 0 if empty.
+     */
+    static long percentile(long [] counts, double percentile) {
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+        for (int i = 0; i < counts.length; i++) {
+            rank -= counts[i];
+            if (rank <= 0) {
+                return highestValue(i);
+            }
+        }
+
+        return highestValue(counts.length - 1);
+    }
+
+    /**
+     * Private method finds the bucket of a duration.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int)nanos;
+        }
+
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(nanos));
+        int sub = exponent == MAX_EXPONENT && nanos >= 1L << (MAX_EXPONENT + 1) ?
+        SUB_BUCKETS - 1 : (int)(nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Private method finds the highest duration counted by a bucket.
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,238 @@
+package ePortfolio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ *  MappedText class contains the helpers shared by the readers of memory mapped text files.
+ *  Files are mapped in windows and split into lines, numbers are parsed straight from the mapped bytes.
+ */
+class MappedText {
+    /**
+     * Largest number of bytes mapped at once, files larger than it are read in windows.
+     */
+    private static final int WINDOW = 1 << 26;
+
+    /**
+     * Number of lines read between checks for interruption and progress reports.
+     */
+    private static final int CHECK_LINES = 1 << 12;
+
+    /**
+     * Powers of 10 that are exact doubles.
+     */
+    private static final double [] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     *  LineHandler interface receives the lines of a mapped file.
+     */
+    interface LineHandler {
+        /**
+         * Method handles a single line, the line separator isn't included.
+         * @param buffer A ByteBuffer object containing the line.
+         * @param start An integer value containing the index of the first byte of the line.
+         * @param end An integer value containing the index after the last byte of the line.
+         */
+        void line(ByteBuffer buffer, int start, int end) throws Exception;
+    }
+
+    private MappedText() {
+
+    }
+
+    /**
+     * Method memory maps a file and passes each of its lines to a handler in order.
+     * @param fileName String object containing the name of the file.
+     * @param handler A LineHandler object receiving the lines.
+     */
+    static void readLines(String fileName, LineHandler handler) throws Exception {
+        readLines(fileName, handler, null);
+    }
+
+    /**
+     * Method memory maps a file and passes each of its lines to a handler in order, reporting its progress.
+     * Reading stops with an InterruptedException once the calling thread is interrupted.
+     * @param fileName String object containing the name of the file.
+     * @param handler A LineHandler object receiving the lines.
+     * @param progress An IntConsumer receiving the percentage of the file read whenever it grows, may be null.
+     */
+    static void readLines(String fileName, LineHandler handler, IntConsumer progress) throws Exception {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+
+            // every window starts at the beginning of a line
+            while (position < fileSize) {
+                long length = Math.min(WINDOW, fileSize - position);
+                boolean last = position + length == fileSize;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int consumed = readLines(buffer, (int)length, last, handler, position, fileSize, progress);
+                if (consumed == 0) {
+                    throw new IOException("ERROR: Line longer than " + WINDOW + " bytes in " + fileName + ".");
+                }
+                position += consumed;
+            }
+        }
+
+        if (progress != null) {
+            progress.accept(100);
+        }
+    }
+
+    /**
+     * Private method passes the complete lines of a mapped window to a handler.
+     * @param buffer A ByteBuffer object containing the window.
+     * @param limit An integer value containing the number of bytes in the window.
+     * @param last A boolean value that is true if the window ends at the end of the file.
+     * @param handler A LineHandler object receiving the lines.
+     * @param position A long value containing the position of the window in the file.
+     * @param fileSize A long value containing the size of the file.
+     * @param progress An IntConsumer receiving the percentage of the file read, may be null.
+     * @return An integer value containing the number of bytes of the lines passed.
+     */
+    private static int readLines(ByteBuffer buffer, int limit, boolean last, LineHandler handler,
+    long position, long fileSize, IntConsumer progress) throws Exception {
+        int lineStart = 0;
+        int lines = 0;
+
+        while (lineStart < limit) {
+            if (++lines % CHECK_LINES == 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Reading interrupted.");
+                }
+                if (progress != null) {
+                    progress.accept((int)((position + lineStart) * 100 / fileSize));
+                }
+            }
+
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            // an unterminated line is read again at the start of the next window
+            if (lineEnd == limit && !last) {
+                return lineStart;
+            }
+
+            handler.line(buffer, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+        }
+
+        return limit;
+    }
+
+    /**
+     * Method parses a double from the bytes of a buffer.
+     * Plain decimals with at most 18 digits are computed as an exact integer divided by an exact power of 10,
+     * which rounds the same as Double.parseDouble, other numbers fall back to Double.parseDouble.
+     * @param buffer A ByteBuffer object containing the number.
+     * @param start An integer value containing the index of the first byte of the number.
+     * @param end An integer value containing the index after the last byte of the number.
+     * @return A double value containing the number.
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) throws NumberFormatException {
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+
+        for (int i = start; i < end; i++) {
+            byte c = buffer.get(i);
+
+            if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            else if (c == '.' && scale < 0) {
+                scale = 0;
+            }
+            else {
+                return Double.parseDouble(string(buffer, start, end));
+            }
+        }
+
+        scale = Math.max(scale, 0);
+        if (digits > 0 && mantissa < 1L << 53 && scale < POWERS_OF_TEN.length) {
+            return mantissa / POWERS_OF_TEN[scale];
+        }
+
+        return Double.parseDouble(string(buffer, start, end));
+    }
+
+    /**
+     * Method parses an int from the bytes of a buffer, the same numbers as Integer.parseInt are accepted.
+     * @param buffer A ByteBuffer object containing the number.
+     * @param start An integer value containing the index of the first byte of the number.
+     * @param end An integer value containing the index after the last byte of the number.
+     * @return An integer value containing the number.
+     */
+    static int parseInt(ByteBuffer buffer, int start, int end) throws NumberFormatException {
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+            byte c = buffer.get(i);
+
+            if (c < '0' || c > '9' || i - start >= 10) {
+                return Integer.parseInt(string(buffer, start, end));
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        if (start == end || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(string(buffer, start, end));
+        }
+
+        return (int)value;
+    }
+
+    /**
+     * Method finds the first byte after leading spaces, tabs and carriage returns.
+     */
+    static int skipSpaces(ByteBuffer buffer, int start, int end) {
+        while (start < end && isSpace(buffer.get(start))) {
+            start++;
+        }
+
+        return start;
+    }
+
+    /**
+     * Method finds the index after the last byte before trailing spaces, tabs and carriage returns.
+     */
+    static int trimSpaces(ByteBuffer buffer, int start, int end) {
+        while (end > start && isSpace(buffer.get(end - 1))) {
+            end--;
+        }
+
+        return end;
+    }
+
+    /**
+     * Private method copies bytes of a buffer to an ASCII String for the slow paths.
+     */
+    private static String string(ByteBuffer buffer, int start, int end) {
+        byte [] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+}
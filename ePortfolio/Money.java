@@ -0,0 +1,86 @@
+package ePortfolio;
+
+/**
+ *  Money class converts and computes amounts of money kept as fixed-point long values of micro-units (millionths).
+ *  Prices, book values and gains are stored in micro-units so repeated trades add exact integers instead of
+ *  accumulating floating point rounding errors, and every result is the same on any platform.
+ *  The arithmetic doesn't allocate and throws an ArithmeticException instead of overflowing.
+ */
+public final class Money {
+    /**
+     * Number of micro-units in a unit of money.
+     */
+    public static final long SCALE = 1_000_000L;
+
+    /**
+     * Largest amount in units that can be converted to micro-units.
+     */
+    private static final double MAX_AMOUNT = Long.MAX_VALUE / (double)SCALE;
+
+    private Money() {
+
+    }
+
+    /**
+     * Method converts an amount of money to micro-units, rounding to the nearest micro-unit.
+     * @param amount A double value containing the amount in units.
+     * @return A long value containing the amount in micro-units.
+     */
+    public static long toMicros(double amount) {
+        if (!fits(amount)) {
+            throw new ArithmeticException("ERROR: Amount " + amount + " can't be represented.");
+        }
+
+        return Math.round(amount * SCALE);
+    }
+
+    /**
+     * Method checks if an amount of money can be converted to micro-units.
+     * @param amount A double value containing the amount in units.
+     * @return A boolean value that is false for NaN, infinite and too large amounts.
+     */
+    public static boolean fits(double amount) {
+        return Math.abs(amount) < MAX_AMOUNT;
+    }
+
+    /**
+     * Method converts an amount of micro-units to units.
+     * @param micros A long value containing the amount in micro-units.
+     * @return A double value containing the closest amount in units.
+     */
+    public static double toDouble(long micros) {
+        return micros / (double)SCALE;
+    }
+
+    /**
+     * Method multiplies a price by a quantity.
+     * @param micros A long value containing the price in micro-units.
+     * @param quantity An integer value containing the quantity.
+     * @return A long value containing the exact product in micro-units.
+     */
+    public static long multiply(long micros, int quantity) {
+        return Math.multiplyExact(micros, (long)quantity);
+    }
+
+    /**
+     * Method scales an amount by the ratio of two quantities, for example the book value of the
+     * quantity left after a sale. The amount is split by the denominator first, so the intermediate
+     * products fit in a long, and the result is rounded half up to the nearest micro-unit.
+     * @param micros A long value containing the amount in micro-units.
+     * @param numerator An integer value containing the non-negative numerator of the ratio.
+     * @param denominator An integer value containing the positive denominator of the ratio.
+     * @return A long value containing the scaled amount in micro-units.
+     */
+    public static long scale(long micros, int numerator, int denominator) {
+        if (numerator < 0 || denominator <= 0) {
+            throw new ArithmeticException("ERROR: Invalid ratio " + numerator + "/" + denominator + ".");
+        }
+
+        long quotient = Math.floorDiv(micros, (long)denominator);
+        long remainder = Math.floorMod(micros, (long)denominator);
+
+        // remainder and numerator are both below 2^31, so twice their product is below 2^63
+        long fraction = (2 * remainder * numerator + denominator) / (2L * denominator);
+        return Math.addExact(Math.multiplyExact(quotient, (long)numerator), fraction);
+    }
+}
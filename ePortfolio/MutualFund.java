@@ -5,6 +5,16 @@ package ePortfolio;
  *  Gain on MutualFund investment can be calculated independantly from other investment types.
  */
 public class MutualFund extends Investment {
+    /**
+     * Redemption fee deducted from the payment of a sale.
+     */
+    public static final double COMMISSION = 45;
+
+    /**
+     * COMMISSION in Money micro-units.
+     */
+    public static final long COMMISSION_MICROS = 45_000_000L;
+
     /**
      * This constructor declares a new MutualFund object and initializes its symbol and name.
      * The MutualFund's symbol is initialized with the symbol argument.
@@ -51,11 +61,20 @@ public class MutualFund extends Investment {
      * @return A double variable containing the updated gain of the MutualFund.
      */
     public double getGain() {
+        return Money.toDouble(getGainMicros());
+    }
+
+    /**
+     * This method computes the gain on investment of the calling MutualFund object with exact fixed-point arithmetic.
+     * It assigns the value to gain attribute and returns it.
+     * @return A long value containing the updated gain of the MutualFund in Money micro-units.
+     */
+    public long getGainMicros() {
         // reduces 45$ from the payment for the commision
-        double payment = getPrice() * getQuantity() - 45; 
-        double gain = payment - getBookValue();
-        setGain(gain); 
+        long payment = Money.multiply(price, quantity) - COMMISSION_MICROS;
+        long gain = payment - bookValue;
 
+        this.gain = gain;
         return gain;
     }
 
@@ -0,0 +1,122 @@
+package ePortfolio;
+
+import java.util.ArrayList;
+
+/**
+ *  ObjectHoldingStore class keeps every investment as a Stock or MutualFund object indexed by its holding ID.
+ *  Operations are delegated to the Investment objects, which are returned as they are.
+ */
+class ObjectHoldingStore implements HoldingStore {
+    /**
+     * ArrayList of Investment objects indexed by their holding ID, free IDs hold null.
+     */
+    private ArrayList<Investment> holdings = new ArrayList<>();
+
+    /**
+     * Default constructor that declares a new empty ObjectHoldingStore object.
+     */
+    ObjectHoldingStore() {
+
+    }
+
+    public void add(int id, Investment investment) {
+        while (holdings.size() <= id) {
+            holdings.add(null);
+        }
+
+        holdings.set(id, investment);
+    }
+
+    public void remove(int id) {
+        holdings.set(id, null);
+    }
+
+    public Investment get(int id) {
+        return holdings.get(id);
+    }
+
+    public Investment copyOf(int id) {
+        return holdings.get(id).copy();
+    }
+
+    public boolean isStock(int id) {
+        return holdings.get(id) instanceof Stock;
+    }
+
+    public String getSymbol(int id) {
+        return holdings.get(id).getSymbol();
+    }
+
+    public String getName(int id) {
+        return holdings.get(id).getName();
+    }
+
+    public int getQuantity(int id) {
+        return holdings.get(id).getQuantity();
+    }
+
+    public double getPrice(int id) {
+        return holdings.get(id).getPrice();
+    }
+
+    public long getPriceMicros(int id) {
+        return holdings.get(id).getPriceMicros();
+    }
+
+    public double getBookValue(int id) {
+        return holdings.get(id).getBookValue();
+    }
+
+    public long getBookValueMicros(int id) {
+        return holdings.get(id).getBookValueMicros();
+    }
+
+    public double getGain(int id) {
+        return holdings.get(id).getGain();
+    }
+
+    public long getGainMicros(int id) {
+        return holdings.get(id).getGainMicros();
+    }
+
+    public void buy(int id, long price, int quantity) throws Exception {
+        holdings.get(id).buyMicros(price, quantity);
+    }
+
+    public void sell(int id, int quantity, long price) throws Exception {
+        holdings.get(id).sellMicros(quantity, price);
+    }
+
+    public void setPrice(int id, long price) throws Exception {
+        Investment investment = holdings.get(id);
+
+        investment.updatePriceMicros(price);
+        investment.getGainMicros();
+    }
+
+    public long getTotalGainMicros() {
+        long sum = 0;
+
+        // add gain of all Investment objects
+        for (Investment investment : holdings) {
+            if (investment != null) {
+                sum = Math.addExact(sum, investment.getGainMicros());
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Method copies the store and every Investment object in it, so changes to the copy don't modify this store.
+     */
+    public HoldingStore copy() {
+        ObjectHoldingStore copy = new ObjectHoldingStore();
+        copy.holdings = new ArrayList<>(holdings.size());
+
+        for (Investment investment : holdings) {
+            copy.holdings.add(investment == null ? null : investment.copy());
+        }
+        return copy;
+    }
+}
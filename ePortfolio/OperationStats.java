@@ -0,0 +1,85 @@
+package ePortfolio;
+
+/**
+ *  OperationStats class represents the counters and latencies of a Portfolio operation at a point in time.
+ *  Latencies are in nanoseconds, percentiles are the upper bounds of their histogram buckets capped by the maximum.
+ */
+public class OperationStats {
+    private final String operation;
+    private final long count;
+    private final long failures;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    /**
+     * Constructor declares a new OperationStats object from the state of a histogram.
+     * @param operation String object containing the name of the operation.
+     * @param count A long value containing the number of calls.
+     * @param failures A long value containing the number of calls that threw an Exception.
+     * @param histogram A LatencyHistogram object containing the durations of the calls.
+     */
+    OperationStats(String operation, long count, long failures, LatencyHistogram histogram) {
+        long [] counts = histogram.counts();
+        long max = histogram.getMax();
+
+        this.operation = operation;
+        this.count = count;
+        this.failures = failures;
+        this.meanNanos = count == 0 ? 0 : histogram.getTotal() / count;
+        this.p50Nanos = Math.min(max, LatencyHistogram.percentile(counts, 50));
+        this.p90Nanos = Math.min(max, LatencyHistogram.percentile(counts, 90));
+        this.p99Nanos = Math.min(max, LatencyHistogram.percentile(counts, 99));
+        this.p999Nanos = Math.min(max, LatencyHistogram.percentile(counts, 99.9));
+        this.maxNanos = max;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Method adds the counters and latencies to a String object and returns it.
+     * @return A String object containing the statistics on a line.
+     */
+    public String toString() {
+        return operation + ": count = " + count + ", failures = " + failures + ", mean = " + meanNanos +
+        "ns, p50 = " + p50Nanos + "ns, p90 = " + p90Nanos + "ns, p99 = " + p99Nanos + "ns, p99.9 = " + p999Nanos +
+        "ns, max = " + maxNanos + "ns";
+    }
+}
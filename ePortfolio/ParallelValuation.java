@@ -0,0 +1,139 @@
+package ePortfolio;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  ParallelValuation class computes the valuations that visit every investment of a Portfolio.
+ *  The investments are split into chunks of a fixed size that are valued on the common fork/join pool,
+ *  small portfolios are valued on the calling thread. Gains are added as exact Money micro-units,
+ *  so the parallel and sequential paths give the same results.
+ *  The portfolio must not be modified while it's valued.
+ */
+class ParallelValuation {
+    /**
+     * Number of investments valued by a single fork/join task.
+     */
+    static final int CHUNK_SIZE = 1 << 14;
+
+    /**
+     * Smallest number of investments valued in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private ParallelValuation() {
+
+    }
+
+    /**
+     * Method adds the gains of the investments.
+     * @param holdings A HoldingStore object containing the investments.
+     * @param order An array of integers containing the holding IDs in portfolio order.
+     * @param count An integer value containing the number of holding IDs in order.
+     * @return A long value containing the sum of the gains in Money micro-units.
+     */
+    static long totalGain(HoldingStore holdings, int [] order, int count) {
+        int chunks = chunks(count);
+        long [] sums = new long[chunks];
+
+        run(chunks, count, chunk -> {
+            long sum = 0;
+
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(count, i + CHUNK_SIZE); i < end; i++) {
+                sum = Math.addExact(sum, holdings.getGainMicros(order[i]));
+            }
+            sums[chunk] = sum;
+        });
+
+        // partial sums are combined on the calling thread
+        long total = 0;
+        for (long sum : sums) {
+            total = Math.addExact(total, sum);
+        }
+
+        return total;
+    }
+
+    /**
+     * Method lists the gains of the investments, each symbol followed by its gain on a line.
+     * @param holdings A HoldingStore object containing the investments.
+     * @param order An array of integers containing the holding IDs in portfolio order.
+     * @param count An integer value containing the number of holding IDs in order.
+     * @return A String object containing the gains in portfolio order.
+     */
+    static String individualGains(HoldingStore holdings, int [] order, int count) {
+        int chunks = chunks(count);
+        StringBuilder [] parts = new StringBuilder[chunks];
+
+        run(chunks, count, chunk -> {
+            StringBuilder gains = new StringBuilder();
+
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(count, i + CHUNK_SIZE); i < end; i++) {
+                gains.append(holdings.getSymbol(order[i])).append(": ").append(holdings.getGain(order[i])).append("\n");
+            }
+            parts[chunk] = gains;
+        });
+
+        StringBuilder gains = new StringBuilder();
+        for (StringBuilder part : parts) {
+            gains.append(part);
+        }
+
+        return gains.toString();
+    }
+
+    /**
+     *  ChunkAction interface values a single chunk.
+     */
+    private interface ChunkAction {
+        void value(int chunk);
+    }
+
+    /**
+     *  ChunkTask class splits a range of chunks in halves until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final ChunkAction action;
+
+        ChunkTask(int from, int to, ChunkAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        protected void compute() {
+            if (to - from == 1) {
+                action.value(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, middle, action), new ChunkTask(middle, to, action));
+        }
+    }
+
+    /**
+     * Private method values every chunk, in parallel if there are enough investments.
+     */
+    private static void run(int chunks, int count, ChunkAction action) {
+        if (count < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                action.value(chunk);
+            }
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new ChunkTask(0, chunks, action));
+        }
+    }
+
+    /**
+     * Private method counts the chunks of a number of investments, an empty portfolio has a single empty chunk.
+     */
+    private static int chunks(int count) {
+        return Math.max(1, (count + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,273 @@
+package ePortfolio;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ *  PersistentHoldingTree class keeps the versions of the investments of a Portfolio published as snapshots.
+ *  It's a treap ordered by the sequence number each holding ID got when it was added, so in portfolio order,
+ *  with subtree sizes for lookups by position. Changes copy only the path to the changed node and share the
+ *  rest with the published versions. Nodes created since the last publish aren't shared yet,
+ *  so they're modified in place, which keeps bulk changes from copying a path per change.
+ *  It's only modified by the thread modifying the Portfolio, published roots are never modified.
+ */
+class PersistentHoldingTree {
+    /**
+     *  Node class represents an investment in the tree.
+     */
+    static final class Node {
+        final long key;
+        final int priority;
+        Investment investment;
+        Node left;
+        Node right;
+        int size;
+
+        /**
+         * Token of the version the node was created for, only nodes of the unpublished version are modified.
+         */
+        final Object edit;
+
+        Node(long key, int priority, Investment investment, Object edit) {
+            this.key = key;
+            this.priority = priority;
+            this.investment = investment;
+            this.size = 1;
+            this.edit = edit;
+        }
+
+        Node(Node other, Object edit) {
+            this.key = other.key;
+            this.priority = other.priority;
+            this.investment = other.investment;
+            this.left = other.left;
+            this.right = other.right;
+            this.size = other.size;
+            this.edit = edit;
+        }
+    }
+
+    private Node root = null;
+    private Object edit = new Object();
+    private boolean changed = false;
+
+    /**
+     * Sequence numbers of the holding IDs in the tree indexed by holding ID, 0 for IDs not in the tree.
+     */
+    private long [] keys = new long[16];
+    private long nextKey = 1;
+
+    /**
+     * Default constructor that declares a new empty PersistentHoldingTree object.
+     */
+    PersistentHoldingTree() {
+
+    }
+
+    /**
+     * Method sets the investment of a holding ID, a holding ID not in the tree is added after all the others.
+     * @param id An integer value containing the holding ID.
+     * @param investment A detached Investment object that is never modified.
+     */
+    void put(int id, Investment investment) {
+        if (id >= keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(keys.length * 2, id + 1));
+        }
+        if (keys[id] == 0) {
+            keys[id] = nextKey++;
+        }
+
+        root = put(root, keys[id], investment);
+        changed = true;
+    }
+
+    /**
+     * Method removes the investment of a holding ID, the holding ID can be added again later.
+     * @param id An integer value containing the holding ID.
+     */
+    void remove(int id) {
+        if (id >= keys.length || keys[id] == 0) {
+            return;
+        }
+
+        root = remove(root, keys[id]);
+        keys[id] = 0;
+        changed = true;
+    }
+
+    /**
+     * Method checks if the tree changed since it was last published.
+     * @return A boolean value that is true if there are unpublished changes.
+     */
+    boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Method publishes the current version, its nodes are never modified afterwards.
+     * @return The root Node of the version, null for an empty tree.
+     */
+    Node publish() {
+        edit = new Object();
+        changed = false;
+        return root;
+    }
+
+    /**
+     * Method finds the investment at a position of a version.
+     * @param node The root Node of the version.
+     * @param index An integer value containing the position, it must be lower than the size of the version.
+     * @return The Investment object at the position.
+     */
+    static Investment get(Node node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+
+            if (index < leftSize) {
+                node = node.left;
+            }
+            else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+            else {
+                return node.investment;
+            }
+        }
+    }
+
+    /**
+     * Method passes the investments of a version to a consumer in portfolio order.
+     * @param node The root Node of the version.
+     * @param consumer A Consumer receiving the Investment objects.
+     */
+    static void forEach(Node node, Consumer<Investment> consumer) {
+        while (node != null) {
+            forEach(node.left, consumer);
+            consumer.accept(node.investment);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Method counts the investments of a version.
+     * @param node The root Node of the version, may be null.
+     * @return An integer value containing the number of investments.
+     */
+    static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private Node put(Node node, long key, Investment investment) {
+        if (node == null) {
+            return new Node(key, priority(key), investment, edit);
+        }
+
+        Node copy = editable(node);
+        if (key < copy.key) {
+            copy.left = put(copy.left, key, investment);
+            if (copy.left.priority > copy.priority) {
+                copy = rotateRight(copy);
+            }
+        }
+        else if (key > copy.key) {
+            copy.right = put(copy.right, key, investment);
+            if (copy.right.priority > copy.priority) {
+                copy = rotateLeft(copy);
+            }
+        }
+        else {
+            copy.investment = investment;
+        }
+
+        resize(copy);
+        return copy;
+    }
+
+    private Node remove(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key == node.key) {
+            return merge(node.left, node.right);
+        }
+
+        Node copy = editable(node);
+        if (key < copy.key) {
+            copy.left = remove(copy.left, key);
+        }
+        else {
+            copy.right = remove(copy.right, key);
+        }
+
+        resize(copy);
+        return copy;
+    }
+
+    /**
+     * Private method joins two subtrees whose keys are all lower in left than in right.
+     */
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        else if (right == null) {
+            return left;
+        }
+
+        if (left.priority > right.priority) {
+            Node copy = editable(left);
+            copy.right = merge(copy.right, right);
+            resize(copy);
+            return copy;
+        }
+
+        Node copy = editable(right);
+        copy.left = merge(left, copy.left);
+        resize(copy);
+        return copy;
+    }
+
+    /**
+     * Private method rotates the editable left child of an editable node above it.
+     */
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        resize(node);
+        left.right = node;
+        return left;
+    }
+
+    /**
+     * Private method rotates the editable right child of an editable node above it.
+     */
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        resize(node);
+        right.left = node;
+        return right;
+    }
+
+    /**
+     * Private method returns a node that can be modified, copying it if it belongs to a published version.
+     */
+    private Node editable(Node node) {
+        return node.edit == edit ? node : new Node(node, edit);
+    }
+
+    private static void resize(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Private method derives the heap priority of a key by mixing its bits, so trees are balanced
+     * even though keys are added in increasing order.
+     */
+    private static int priority(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int)(key ^ (key >>> 33));
+    }
+}
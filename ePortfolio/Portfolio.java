@@ -1,12 +1,21 @@
 package ePortfolio;
 
-import java.util.Scanner;
 import java.util.HashMap;
-import java.util.ListIterator;
+import java.util.PrimitiveIterator;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  *  Portfolio class responsible for keeping records of different type of investments into an ArrayList.
@@ -14,11 +23,114 @@ import java.io.PrintWriter;
  */
 public class Portfolio {
     /**
-     * Arraylist of Investment objects owned.
+     * Lowest share of the query trigrams an investment needs to be returned by fuzzySearch.
      */
-    private ArrayList<Investment> investments = new ArrayList<>();
+    public static final double FUZZY_SIMILARITY = 0.5;
 
-    private HashMap<String, ArrayList<Integer>> relevantInvestments = new HashMap<String, ArrayList<Integer>>();
+    /**
+     * Storage engines available for keeping the state of the investments.
+     * OBJECT keeps a Stock or MutualFund object per investment, COLUMNAR keeps
+     * quantities, prices and book values in parallel primitive arrays.
+     */
+    public enum Engine { OBJECT, COLUMNAR }
+
+    /**
+     * Storage engine keeping the investments owned, indexed by their holding ID.
+     * Holding IDs never change while an investment is owned, unlike its index in the portfolio order.
+     */
+    private HoldingStore holdings;
+
+    /**
+     * Holding IDs of the investments owned in the order they were added.
+     */
+    private int [] order = new int[16];
+
+    /**
+     * Number of investments owned.
+     */
+    private int holdingCount = 0;
+
+    /**
+     * Sequence numbers of the holding IDs indexed by holding ID. Every added investment gets a higher
+     * number than the ones before it, so order is sorted by sequence number.
+     */
+    private int [] sequences = new int[16];
+    private int nextSequence = 0;
+
+    /**
+     * Next holding ID to be allocated once no released IDs are left.
+     */
+    private int nextId = 0;
+
+    /**
+     * Running total of the market value (price times quantity) of all investments in Money micro-units.
+     */
+    private long marketValue = 0;
+
+    /**
+     * Running total of the book value of all investments in Money micro-units.
+     */
+    private long bookValue = 0;
+
+    /**
+     * Running total of the commissions deducted from the gain of all investments in Money micro-units.
+     */
+    private long commissions = 0;
+
+    /**
+     * Holding IDs released by sold out investments, reused before new IDs are allocated.
+     */
+    private ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+
+    /**
+     * HashMap of lowercase name keywords to bitmaps of the holding IDs of investments with the keyword in their name.
+     */
+    private HashMap<String, HoldingBitmap> relevantInvestments = new HashMap<String, HoldingBitmap>();
+
+    /**
+     * HashMap of lowercase symbols to the holding IDs of owned investments, used for constant time lookups by symbol.
+     */
+    private HashMap<String, Integer> symbolIndex = new HashMap<>();
+
+    /**
+     * Holding IDs sorted by the price of their investments, used for price range searches.
+     */
+    private PriceIndex priceIndex = new PriceIndex();
+
+    /**
+     * Trie of lowercase name keywords and symbols to holding IDs, used for prefix completion.
+     */
+    private PrefixIndex prefixIndex = new PrefixIndex();
+
+    /**
+     * Trigrams of names and symbols to holding IDs, used for typo tolerant searches.
+     */
+    private TrigramIndex trigramIndex = new TrigramIndex();
+
+    /**
+     * Journal recording the buys, sells and price updates, null when changes aren't journaled.
+     */
+    private TransactionJournal journal = null;
+
+    /**
+     * Sequence number of the last journal record applied to the portfolio.
+     */
+    private long journalSequence = 0;
+
+    /**
+     * Changes made since they were last persisted by an AutosaveService, null when changes aren't tracked.
+     */
+    private ChangeTracker changes = null;
+
+    /**
+     * Versions of the investments published as snapshots, null when snapshots aren't enabled.
+     */
+    private PersistentHoldingTree snapshotTree = null;
+
+    /**
+     * Latest snapshot published, read by any thread.
+     */
+    private volatile PortfolioSnapshot snapshot = null;
 
     /**
      * Constructor declares a new Portfolio object and initializes its investments attribute.
@@ -26,7 +138,10 @@ public class Portfolio {
      * @param investments An ArrayList containing all the investments owned to initialize the investments attribute.
      */
     public Portfolio(ArrayList<Investment> investments) {
-        this.investments = new ArrayList<>(investments);
+        this();
+        for (Investment investment : investments) {
+            addHolding(investment);
+        }
     }
 
     /**
@@ -36,22 +151,130 @@ public class Portfolio {
      */
     public Portfolio (Object other) {
         if (this.getClass() != other.getClass()) {
+            holdings = new ObjectHoldingStore();
             return; 
         }
 
-        this.investments = new ArrayList<>(((Portfolio)other).investments);
-        this.relevantInvestments = new HashMap<>(((Portfolio)other).relevantInvestments);
+        Portfolio otherPortfolio = (Portfolio)other;
+        this.holdings = otherPortfolio.holdings.copy();
+        this.order = otherPortfolio.order.clone();
+        this.holdingCount = otherPortfolio.holdingCount;
+        this.sequences = otherPortfolio.sequences.clone();
+        this.nextSequence = otherPortfolio.nextSequence;
+        this.nextId = otherPortfolio.nextId;
+        this.marketValue = otherPortfolio.marketValue;
+        this.bookValue = otherPortfolio.bookValue;
+        this.commissions = otherPortfolio.commissions;
+        this.journalSequence = otherPortfolio.journalSequence;
+        this.freeIds = new ArrayDeque<>(otherPortfolio.freeIds);
+        this.symbolIndex = new HashMap<>(otherPortfolio.symbolIndex);
+        this.priceIndex = new PriceIndex(otherPortfolio.priceIndex);
+        this.prefixIndex = new PrefixIndex(otherPortfolio.prefixIndex);
+        this.trigramIndex = new TrigramIndex(otherPortfolio.trigramIndex);
+
+        // ID bitmaps are copied so the two portfolios can be modified independently
+        for (Map.Entry<String, HoldingBitmap> entry : otherPortfolio.relevantInvestments.entrySet()) {
+            this.relevantInvestments.put(entry.getKey(), new HoldingBitmap(entry.getValue()));
+        }
     }
 
     /**
-     * Default constructor that declares a new Portfolio object.
+     * Default constructor that declares a new Portfolio object using the OBJECT storage engine.
      */
     public Portfolio() {
+        this(Engine.OBJECT);
+    }
 
+    /**
+     * Constructor declares a new empty Portfolio object using a storage engine.
+     * The public methods behave the same with either engine.
+     * @param engine Engine value choosing how the state of the investments is stored.
+     */
+    public Portfolio(Engine engine) {
+        holdings = engine == Engine.COLUMNAR ? new ColumnarHoldingStore() : new ObjectHoldingStore();
     }
 
+    /**
+     * Method returns the investments owned in the order they were added.
+     * With the COLUMNAR engine the Investment objects are detached views of the stored investments.
+     * The list is built on every call, snapshot returns the investments without copying them.
+     * @return An ArrayList containing the Investment objects owned.
+     */
     public ArrayList<Investment> getArray () {
-        return new ArrayList<Investment>(investments);
+        ArrayList<Investment> investments = new ArrayList<Investment>(holdingCount);
+        for (int i = 0; i < holdingCount; i++) {
+            investments.add(holdings.get(order[i]));
+        }
+
+        return investments;
+    }
+
+    /**
+     * Method starts publishing a snapshot of the investments after every change.
+     * It has to be called by the thread modifying the portfolio, snapshots can be read by any thread afterwards.
+     */
+    public void enableSnapshots() {
+        if (snapshotTree != null) {
+            return;
+        }
+
+        snapshotTree = new PersistentHoldingTree();
+        for (int i = 0; i < holdingCount; i++) {
+            snapshotTree.put(order[i], holdings.copyOf(order[i]));
+        }
+        snapshot = new PortfolioSnapshot(snapshotTree.publish(), 0, marketValue, bookValue, commissions);
+    }
+
+    /**
+     * Method returns the latest snapshot of the investments, it can be called from any thread without blocking.
+     * A snapshot never changes, changes made to the portfolio afterwards are published as new snapshots.
+     * @return A PortfolioSnapshot object containing the investments after the last completed operation.
+     */
+    public PortfolioSnapshot snapshot() {
+        PortfolioSnapshot latest = snapshot;
+        if (latest == null) {
+            throw new IllegalStateException("ERROR: Snapshots aren't enabled.");
+        }
+
+        return latest;
+    }
+
+    /**
+     * Private method publishes the changes made since the last snapshot as a new snapshot.
+     * It's called once an operation is done so its changes are published together.
+     */
+    private void publish() {
+        if (snapshotTree != null && snapshotTree.isChanged()) {
+            snapshot = new PortfolioSnapshot(snapshotTree.publish(), snapshot.getVersion() + 1,
+            marketValue, bookValue, commissions);
+        }
+    }
+
+    /**
+     * Method looks up an owned investment by its symbol, ignoring cases.
+     * @param symbol String object containing the symbol of the required investment.
+     * @return The Investment object with a matching symbol, null is returned if it isn't owned.
+     */
+    public Investment getInvestment(String symbol) {
+        if (symbol == null) {
+            return null;
+        }
+
+        Integer id = symbolIndex.get(symbolKey(symbol));
+        return id == null ? null : holdings.get(id);
+    }
+
+    /**
+     * Private method finds the holding ID of the investment at a position of the portfolio order.
+     * @param investmentIndex An integer value containing the position of the investment.
+     * @return An integer value containing the holding ID of the investment.
+     */
+    private int idAt(int investmentIndex) {
+        if (investmentIndex < 0 || investmentIndex >= holdingCount) {
+            throw new IndexOutOfBoundsException("Invalid investment index " + investmentIndex + ".");
+        }
+
+        return order[investmentIndex];
     }
 
 
@@ -68,53 +291,326 @@ public class Portfolio {
      * @return String object containing the purchased investment information.
      */
     public String buy(String type, String symbol, String name, String quantity, String price) throws Exception {
+        PortfolioEvents.TradeEvent event = PortfolioEvents.trade("buy", symbol, quantity, price);
+        long start = PortfolioMetrics.start();
+        boolean failed = true;
+
+        try {
+            String result = buyInvestment(type, symbol, name, quantity, price);
+            failed = false;
+            return result;
+        }
+        finally {
+            PortfolioMetrics.record(PortfolioMetrics.Operation.BUY, start, failed);
+            if (event != null) {
+                event.succeeded = !failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Private method performing the purchase measured by buy.
+     */
+    private String buyInvestment(String type, String symbol, String name, String quantity, String price)
+    throws Exception {
         validateNums(quantity, price);
 
         if (isNull(symbol) || isNull(name)) {
             throw new Exception("Symbol and name can't be empty, please specify the " + type + ".");
         }
 
-        int investmentIndex;
+        Integer id = symbolIndex.get(symbolKey(symbol));
+        // the order is checked before a new investment is added, so an order that doesn't fit changes nothing
+        long priceMicros = Money.toMicros(Double.parseDouble(price));
+        int units = Integer.parseInt(quantity);
+        if (!fitsPurchase(id, priceMicros, units)) {
+            throw new Exception(TradeStatus.OVERFLOW.getMessage());
+        }
+
         // branch performs operation using a class based on type parameter
         if (type.equalsIgnoreCase("stock") || type.equalsIgnoreCase("s")) {
             // branch appends a new stock if symbol doesn't exist in 
-            investmentIndex = investmentExists(investments, symbol);
-            if (investmentIndex == -1) {
-                investments.add(new Stock());
-                investmentIndex = investments.size() - 1;
-
-                investments.get(investmentIndex).setSymbol(symbol);
-                investments.get(investmentIndex).setName(name);
+            if (id == null) {
+                id = addInvestment(new Stock(), symbol, name);
             }
-            else if (!(investments.get(investmentIndex) instanceof Stock)) {
+            else if (!holdings.isStock(id)) {
                 throw new Exception("ERROR: Symbol entered belongs to another investment type \"" +
-                investments.get(investmentIndex).getClass().getSimpleName() + "\"");
+                holdings.get(id).getClass().getSimpleName() + "\"");
             }
         }
         else if (type.equalsIgnoreCase("mutual") || type.equalsIgnoreCase("m")
         || type.equalsIgnoreCase("mutualfund") || type.equalsIgnoreCase("mutual fund")) {
             // branch appends a new fund and sets symbol 
             // if fund doesn't exist
-            investmentIndex = investmentExists(investments, symbol);
-            if (investmentIndex == -1) {
-                investments.add(new MutualFund());
-                investmentIndex = investments.size() - 1;
-
-                investments.get(investmentIndex).setSymbol(symbol);
-                investments.get(investmentIndex).setName(name);
+            if (id == null) {
+                id = addInvestment(new MutualFund(), symbol, name);
             }
-            else if (!(investments.get(investmentIndex) instanceof MutualFund)) {
+            else if (holdings.isStock(id)) {
                 throw new Exception("WARNING: Symbol entered belongs to another investment type \"" +
-                investments.get(investmentIndex).getClass().getSimpleName() + "\"");
+                holdings.get(id).getClass().getSimpleName() + "\"");
             }
         }
         else {
             throw new Exception("ERROR: Invalid investment type input, try again.");
         }
 
-        mapName(investments.get(investmentIndex), investmentIndex);
-        investments.get(investmentIndex).buy(Double.parseDouble(price), Integer.parseInt(quantity));
-        return investments.get(investmentIndex).toString();
+        holdingChanging(id);
+        try {
+            holdings.buy(id, priceMicros, units);
+        }
+        finally {
+            holdingChanged(id);
+            publish();
+        }
+
+        if (journal != null) {
+            journalSequence = journal.appendBuy(holdings.isStock(id), symbol, name, units, Double.parseDouble(price));
+            journal.commit();
+        }
+        return holdings.get(id).toString();
+    }
+
+    /**
+     * Method performs a purchase operation without parsing or throwing Exceptions.
+     * Invalid orders leave the portfolio unchanged and are reported by the returned status.
+     * @param stock A boolean value that is true to buy a Stock and false to buy a MutualFund.
+     * @param symbol String object containing the symbol for investment to be purchased
+     * @param name String object containing the name for investment to be purchased
+     * @param quantity A long value containing the quantity to be purchased.
+     * @param price A double value containing the purchase price.
+     * @return A TradeStatus value containing the outcome of the purchase.
+     */
+    public TradeStatus buy(boolean stock, String symbol, String name, long quantity, double price) {
+        return buyMicros(stock, symbol, name, quantity, priceMicros(price));
+    }
+
+    /**
+     * Method performs a purchase operation with a price in micro-units, without parsing or throwing Exceptions.
+     * Invalid orders leave the portfolio unchanged and are reported by the returned status.
+     * @param stock A boolean value that is true to buy a Stock and false to buy a MutualFund.
+     * @param symbol String object containing the symbol for investment to be purchased
+     * @param name String object containing the name for investment to be purchased
+     * @param quantity A long value containing the quantity to be purchased.
+     * @param price A long value containing the purchase price in Money micro-units.
+     * @return A TradeStatus value containing the outcome of the purchase.
+     */
+    public TradeStatus buyMicros(boolean stock, String symbol, String name, long quantity, long price) {
+        PortfolioEvents.TradeEvent event = PortfolioEvents.trade("buy", symbol, quantity, price);
+        long start = PortfolioMetrics.start();
+
+        TradeStatus status = buyHolding(stock, symbol, name, quantity, price);
+
+        PortfolioMetrics.record(PortfolioMetrics.Operation.BUY, start, !status.isTraded());
+        if (event != null) {
+            event.succeeded = status.isTraded();
+            event.commit();
+        }
+        return status;
+    }
+
+    /**
+     * Private method performing the purchase of buyMicros, the order is fully validated before anything changes.
+     */
+    private TradeStatus buyHolding(boolean stock, String symbol, String name, long quantity, long price) {
+        if (isNull(symbol) || isNull(name)) {
+            return TradeStatus.INVALID_SYMBOL;
+        }
+        else if (quantity <= 0 || quantity > Integer.MAX_VALUE) {
+            return TradeStatus.INVALID_QUANTITY;
+        }
+        else if (price <= 0) {
+            return TradeStatus.INVALID_PRICE;
+        }
+
+        Integer id = symbolIndex.get(symbolKey(symbol));
+        if (id != null) {
+            if (holdings.isStock(id) != stock) {
+                return TradeStatus.TYPE_MISMATCH;
+            }
+            else if (holdings.getQuantity(id) > Integer.MAX_VALUE - quantity) {
+                return TradeStatus.INVALID_QUANTITY;
+            }
+        }
+
+        if (!fitsPurchase(id, price, quantity)) {
+            return TradeStatus.OVERFLOW;
+        }
+
+        if (id == null) {
+            id = addInvestment(stock ? new Stock() : new MutualFund(), symbol, name);
+        }
+
+        holdingChanging(id);
+        try {
+            holdings.buy(id, price, (int)quantity);
+        }
+        catch (Exception e) {
+            // the order is validated above, so the purchase can't fail
+        }
+        finally {
+            holdingChanged(id);
+            publish();
+        }
+
+        if (journal != null) {
+            try {
+                journalSequence = journal.appendBuy(stock, symbol, name, (int)quantity, Money.toDouble(price));
+                journal.commit();
+            }
+            catch (IOException e) {
+                return TradeStatus.JOURNAL_FAILED;
+            }
+        }
+        return TradeStatus.OK;
+    }
+
+    /**
+     * Private method checks if the running totals fit in a long after a purchase.
+     * The total book value grows by price times quantity plus commission and the holding is valued at the new price.
+     * @param id An Integer object containing the holding ID of the investment, null for a new investment.
+     * @param price A long value containing the positive purchase price in Money micro-units.
+     * @param quantity A long value containing the positive quantity to be purchased.
+     * @return A boolean value that is true if the book value and market value of the portfolio fit.
+     */
+    private boolean fitsPurchase(Integer id, long price, long quantity) {
+        long newQuantity = id == null ? quantity : holdings.getQuantity(id) + quantity;
+
+        return price <= (Long.MAX_VALUE - Stock.COMMISSION_MICROS - bookValue) / quantity &&
+        fitsMarketValue(id, price, newQuantity);
+    }
+
+    /**
+     * Private method checks if the running market value fits in a long once a holding has a new price and quantity.
+     * @param id An Integer object containing the holding ID of the investment, null for a new investment.
+     * @param price A long value containing the new price in Money micro-units.
+     * @param quantity A long value containing the new quantity.
+     * @return A boolean value that is true if the market value of the portfolio fits.
+     */
+    private boolean fitsMarketValue(Integer id, long price, long quantity) {
+        long others = marketValue;
+        if (id != null) {
+            others -= Money.multiply(holdings.getPriceMicros(id), holdings.getQuantity(id));
+        }
+
+        return quantity <= 0 || price <= (Long.MAX_VALUE - others) / quantity;
+    }
+
+    /**
+     * Private method converts a price of the typed trade methods to micro-units.
+     * @return A long value containing the price in Money micro-units, -1 for prices that can't be converted.
+     */
+    private static long priceMicros(double price) {
+        return Money.fits(price) ? Money.toMicros(price) : -1;
+    }
+
+    /**
+     * Private method sets the symbol and name of a new Investment object and adds it to the portfolio.
+     * @param investment A new Investment object to be added to the portfolio.
+     * @param symbol String object containing the symbol of the new investment.
+     * @param name String object containing the name of the new investment.
+     * @return An integer value containing the holding ID of the new investment.
+     */
+    private int addInvestment(Investment investment, String symbol, String name) {
+        investment.setSymbol(symbol);
+        investment.setName(name);
+        return addHolding(investment);
+    }
+
+    /**
+     * Private method adds an Investment object to the end of the portfolio and assigns it a holding ID.
+     * The investment is added to the storage engine and the indices under its holding ID.
+     * @param investment An Investment object with its symbol and name set.
+     * @return An integer value containing the holding ID of the investment.
+     */
+    private int addHolding(Investment investment) {
+        // reuse a released ID so the ID range stays as dense as the portfolio
+        int id = freeIds.isEmpty() ? nextId++ : freeIds.pop();
+        holdings.add(id, investment);
+
+        if (holdingCount == order.length) {
+            order = Arrays.copyOf(order, holdingCount * 2);
+        }
+        order[holdingCount++] = id;
+
+        if (id >= sequences.length) {
+            sequences = Arrays.copyOf(sequences, Math.max(id + 1, sequences.length * 2));
+        }
+        if (nextSequence == Integer.MAX_VALUE) {
+            // sequence numbers are renumbered from the positions once they run out
+            for (int i = 0; i < holdingCount - 1; i++) {
+                sequences[order[i]] = i;
+            }
+            nextSequence = holdingCount - 1;
+        }
+        sequences[id] = nextSequence++;
+
+        // loaded files may have investments without a symbol or name, they are kept but not indexed by them
+        if (investment.getSymbol() != null) {
+            symbolIndex.put(symbolKey(investment.getSymbol()), id);
+        }
+        prefixIndex.add(id, investment.getName(), investment.getSymbol());
+        mapName(investment, id);
+        trigramIndex.add(id, investment.getName(), investment.getSymbol());
+        holdingChanged(id);
+        return id;
+    }
+
+    /**
+     * Private method finds the position of an owned investment in the portfolio order.
+     * Positions are found by a binary search over the sequence numbers, which increase along the order.
+     * @param id An integer value containing the holding ID of the investment.
+     * @return An integer value containing the index of the holding ID in order.
+     */
+    private int position(int id) {
+        int low = 0, high = holdingCount - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sequences[order[middle]] < sequences[id]) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Private method removes an owned investment from the portfolio and its indices.
+     * Its holding ID is released for reuse, IDs of the other investments are unchanged.
+     * @param id An integer value containing the holding ID of the investment to be removed.
+     */
+    private void removeHolding(int id) {
+        String symbol = holdings.getSymbol(id);
+        String name = holdings.getName(id);
+
+        holdingChanging(id);
+
+        if (symbol != null) {
+            symbolIndex.remove(symbolKey(symbol));
+        }
+        prefixIndex.remove(id, name, symbol);
+        removeMappedName(name, id);
+        trigramIndex.remove(id, name, symbol);
+        priceIndex.remove(id);
+
+        // later investments move up a position to keep the order of the portfolio
+        int position = position(id);
+        System.arraycopy(order, position + 1, order, position, holdingCount - position - 1);
+        holdingCount--;
+
+        if (changes != null) {
+            changes.removed(id, holdings.get(id));
+        }
+        if (snapshotTree != null) {
+            snapshotTree.remove(id);
+        }
+
+        holdings.remove(id);
+        freeIds.push(id);
     }
     
     /**
@@ -126,93 +622,617 @@ public class Portfolio {
      * @param price String object containing the double price value for investment to be sold
      * @return String object containing the transaction information.
      */
-    public String sell(String symbol, String quantity, String price) throws Exception {
-        // transaction information is validated (Exceptions thrown if failed)    
-        validateNums(quantity, price);
+    public String sell(String symbol, String quantity, String price) throws Exception {
+        PortfolioEvents.TradeEvent event = PortfolioEvents.trade("sell", symbol, quantity, price);
+        long start = PortfolioMetrics.start();
+        boolean failed = true;
+
+        try {
+            String result = sellInvestment(symbol, quantity, price);
+            failed = false;
+            return result;
+        }
+        finally {
+            PortfolioMetrics.record(PortfolioMetrics.Operation.SELL, start, failed);
+            if (event != null) {
+                event.succeeded = !failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Private method performing the sale measured by sell.
+     */
+    private String sellInvestment(String symbol, String quantity, String price) throws Exception {
+        // transaction information is validated (Exceptions thrown if failed)    
+        validateNums(quantity, price);
+
+        String transaction = "";
+        // method terminates and Exception thrown in case the object wasn't found
+        Integer id = symbol == null ? null : symbolIndex.get(symbolKey(symbol));
+        if (id == null) {
+            throw new Exception("ERROR: Invalid investment symbol, investment doesn't" + 
+            " exist in portfolio.");
+        }
+
+        // the quantity left is valued at the sale price
+        long priceMicros = Money.toMicros(Double.parseDouble(price));
+        if (!fitsMarketValue(id, priceMicros, holdings.getQuantity(id) - (long)Integer.parseInt(quantity))) {
+            throw new Exception(TradeStatus.OVERFLOW.getMessage());
+        }
+
+        holdingChanging(id);
+        try {
+            holdings.sell(id, Integer.parseInt(quantity), priceMicros);
+        }
+        finally {
+            holdingChanged(id);
+        }
+
+        // the sale is published once a sold out investment is removed
+        try {
+            // a journal failure is reported once the sale is complete, the sale is already applied
+            IOException journalError = null;
+            if (journal != null) {
+                try {
+                    journalSequence = journal.appendSell(holdings.getSymbol(id), Integer.parseInt(quantity),
+                    Double.parseDouble(price));
+                    journal.commit();
+                }
+                catch (IOException e) {
+                    journalError = e;
+                }
+            }
+
+            transaction += "Sold "+ quantity + " @ " + price + "$. New book value: "
+            + holdings.getBookValue(id) + "$\n";
+
+            // branch deletes the investment if quantity owned reaches 0 
+            if (holdings.getQuantity(id) == 0) {
+                removeHolding(id);
+            }
+            else {
+                // transaction and Investment information is returned
+                transaction += holdings.get(id).toString();
+            }
+
+            if (journalError != null) {
+                throw journalError;
+            }
+            return transaction;
+        }
+        finally {
+            publish();
+        }
+    }
+
+    /**
+     * Method performs a sell operation without parsing or throwing Exceptions.
+     * Invalid orders leave the portfolio unchanged and are reported by the returned status.
+     * @param symbol String object containing the symbol for investment to be sold
+     * @param quantity A long value containing the quantity to be sold.
+     * @param price A double value containing the selling price.
+     * @return A TradeStatus value containing the outcome of the sale.
+     */
+    public TradeStatus sell(String symbol, long quantity, double price) {
+        return sellMicros(symbol, quantity, priceMicros(price));
+    }
+
+    /**
+     * Method performs a sell operation with a price in micro-units, without parsing or throwing Exceptions.
+     * Invalid orders leave the portfolio unchanged and are reported by the returned status.
+     * @param symbol String object containing the symbol for investment to be sold
+     * @param quantity A long value containing the quantity to be sold.
+     * @param price A long value containing the selling price in Money micro-units.
+     * @return A TradeStatus value containing the outcome of the sale.
+     */
+    public TradeStatus sellMicros(String symbol, long quantity, long price) {
+        PortfolioEvents.TradeEvent event = PortfolioEvents.trade("sell", symbol, quantity, price);
+        long start = PortfolioMetrics.start();
+
+        TradeStatus status = sellHolding(symbol, quantity, price);
+
+        PortfolioMetrics.record(PortfolioMetrics.Operation.SELL, start, !status.isTraded());
+        if (event != null) {
+            event.succeeded = status.isTraded();
+            event.commit();
+        }
+        return status;
+    }
+
+    /**
+     * Private method performing the sale of sellMicros, the order is fully validated before anything changes.
+     */
+    private TradeStatus sellHolding(String symbol, long quantity, long price) {
+        if (quantity <= 0 || quantity > Integer.MAX_VALUE) {
+            return TradeStatus.INVALID_QUANTITY;
+        }
+        else if (price <= 0) {
+            return TradeStatus.INVALID_PRICE;
+        }
+
+        Integer id = symbol == null ? null : symbolIndex.get(symbolKey(symbol));
+        if (id == null) {
+            return TradeStatus.UNKNOWN_SYMBOL;
+        }
+        else if (quantity > holdings.getQuantity(id)) {
+            return TradeStatus.INSUFFICIENT_QUANTITY;
+        }
+        else if (!fitsMarketValue(id, price, holdings.getQuantity(id) - quantity)) {
+            // the quantity left is valued at the sale price
+            return TradeStatus.OVERFLOW;
+        }
+
+        holdingChanging(id);
+        try {
+            holdings.sell(id, (int)quantity, price);
+        }
+        catch (Exception e) {
+            // the order is validated above, so the sale can't fail
+        }
+        finally {
+            holdingChanged(id);
+        }
+
+        // the sale is published once a sold out investment is removed
+        try {
+            TradeStatus status = TradeStatus.OK;
+            if (journal != null) {
+                try {
+                    journalSequence = journal.appendSell(holdings.getSymbol(id), (int)quantity,
+                    Money.toDouble(price));
+                    journal.commit();
+                }
+                catch (IOException e) {
+                    status = TradeStatus.JOURNAL_FAILED;
+                }
+            }
+
+            if (holdings.getQuantity(id) == 0) {
+                removeHolding(id);
+            }
+            return status;
+        }
+        finally {
+            publish();
+        }
+    }
+
+    /** 
+     * Method prompts the user to enter new prices for all investments.
+     * It then updates all the prices in the calling object's investment ArrayLists.
+     */ 
+    public String updatePortfolio(String price, int investmentIndex) throws Exception {
+        int id;
+        double newPrice;
+
+        try {
+            id = idAt(investmentIndex);
+            newPrice = Double.parseDouble(price);
+            if (!fitsPrice(id, newPrice)) {
+                throw new Exception("Invalid price.");
+            }
+        }
+        catch (Exception e) {
+            throw new Exception("Invalid price. Try again");
+        }
+
+        updatePrice(id, newPrice);
+        publish();
+        commitJournal();
+        return holdings.get(id).toString();
+    } 
+
+    /**
+     * Method updates the prices of many investments in a single pass.
+     * Prices are matched to investments by symbol, ignoring cases.
+     * @param prices A Map of symbols to their new prices.
+     * @return A PriceUpdateSummary object counting the changed prices and listing the unknown symbols.
+     */
+    public PriceUpdateSummary updatePrices(Map<String, Double> prices) throws Exception {
+        long start = System.nanoTime();
+        PriceUpdateSummary summary = new PriceUpdateSummary();
+        double gain = getGain();
+
+        summary.ticks = prices.size();
+        for (Map.Entry<String, Double> entry : prices.entrySet()) {
+            updatePrice(entry.getKey(), entry.getValue() == null ? Double.NaN : entry.getValue(), summary);
+        }
+
+        publish();
+        commitJournal();
+        summary.gainChange = getGain() - gain;
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Method updates the prices of many investments in a single pass.
+     * The price at each index of prices belongs to the symbol at the same index of symbols.
+     * @param symbols An array of String objects containing the symbols of the investments.
+     * @param prices An array of double values containing the new prices.
+     * @return A PriceUpdateSummary object counting the changed prices and listing the unknown symbols.
+     */
+    public PriceUpdateSummary updatePrices(String [] symbols, double [] prices) throws Exception {
+        if (symbols.length != prices.length) {
+            throw new Exception("ERROR: Every symbol needs exactly one price.");
+        }
+
+        long start = System.nanoTime();
+        PriceUpdateSummary summary = new PriceUpdateSummary();
+        double gain = getGain();
+
+        summary.ticks = symbols.length;
+        for (int i = 0; i < symbols.length; i++) {
+            updatePrice(symbols[i], prices[i], summary);
+        }
+
+        publish();
+        commitJournal();
+        summary.gainChange = getGain() - gain;
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Method applies a price file of "symbol,price" lines to the investments owned.
+     * The file is memory mapped and parsed without creating a String per line,
+     * only the last valid price of every investment in the file is applied.
+     * @param fileName String object containing the name of the price file.
+     * @return A PriceUpdateSummary object counting the changed prices, listing the unknown symbols
+     * and reporting the throughput in ticks per second.
+     */
+    public PriceUpdateSummary ingestPrices(String fileName) throws Exception {
+        long start = System.nanoTime();
+        PriceUpdateSummary summary = new PriceUpdateSummary();
+        double gain = getGain();
+
+        TickFileReader reader = new TickFileReader(symbolIndex, nextId, summary);
+        reader.read(fileName);
+
+        double [] latestPrices = reader.getLatestPrices();
+        for (int i = 0; i < holdingCount; i++) {
+            int id = order[i];
+            double price = latestPrices[id];
+
+            // the reader only keeps prices that fit in micro-units
+            if (Double.isNaN(price)) {
+                continue;
+            }
+            else if (!fitsPrice(id, price)) {
+                summary.invalid++;
+            }
+            else if (holdings.getPriceMicros(id) == Money.toMicros(price)) {
+                summary.unchanged++;
+            }
+            else {
+                updatePrice(id, price);
+                summary.updated++;
+            }
+        }
+
+        publish();
+        commitJournal();
+        summary.gainChange = getGain() - gain;
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Private method applies a single price of a bulk update and records the outcome in a summary.
+     * @param symbol String object containing the symbol of the investment.
+     * @param price A double value containing the new price.
+     * @param summary A PriceUpdateSummary object recording the outcome.
+     */
+    private void updatePrice(String symbol, double price, PriceUpdateSummary summary) throws IOException {
+        Integer id = symbol == null ? null : symbolIndex.get(symbolKey(symbol));
+
+        if (id == null) {
+            summary.addUnknownSymbol(symbol);
+        }
+        else if (!fitsPrice(id, price)) {
+            summary.invalid++;
+        }
+        else if (holdings.getPriceMicros(id) == Money.toMicros(price)) {
+            summary.unchanged++;
+        }
+        else {
+            updatePrice(id, price);
+            summary.updated++;
+        }
+    }
+
+    /**
+     * Private method checks if a new price of an investment fits in micro-units and keeps the market value in a long.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param price A double value containing the new price.
+     * @return A boolean value that is false for negative, NaN and too large prices.
+     */
+    private boolean fitsPrice(int id, double price) {
+        return price >= 0 && Money.fits(price) && fitsMarketValue(id, Money.toMicros(price), holdings.getQuantity(id));
+    }
+
+    /**
+     * Private method sets the price of an investment and updates the running totals and price index.
+     * The update is appended to the journal, callers commit the journal once their updates are done.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param price A double value containing the new non-negative price, callers check it with fitsPrice.
+     */
+    private void updatePrice(int id, double price) throws IOException {
+        long micros = Money.toMicros(price);
+
+        holdingChanging(id);
+        try {
+            holdings.setPrice(id, micros);
+        }
+        catch (Exception e) {
+            // prices are validated by the callers, so the old price is kept
+        }
+        finally {
+            holdingChanged(id);
+        }
+
+        if (journal != null) {
+            journalSequence = journal.appendPrice(holdings.getSymbol(id), price);
+        }
+    }
+
+    /**
+     * Private method commits the records appended to the journal, if changes are journaled.
+     */
+    private void commitJournal() throws IOException {
+        if (journal != null) {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Method returns the total gain on investments.
+     * The gain is computed from running totals that are updated by every transaction,
+     * so it takes constant time regardless of the number of investments.
+     * @return A double value containing the total gain on investments.
+     */
+    public double getGain() {
+        return Money.toDouble(getGainMicros());
+    }
+
+    /**
+     * Method returns the exact total gain on investments.
+     * @return A long value containing the total gain on investments in Money micro-units.
+     */
+    public long getGainMicros() {
+        return marketValue - commissions - bookValue;
+    }
+
+    /**
+     * Method returns the total market value (price times quantity) of all investments.
+     * @return A double value containing the running total of the market value.
+     */
+    public double getMarketValue() {
+        return Money.toDouble(marketValue);
+    }
+
+    /**
+     * Method returns the total book value of all investments.
+     * @return A double value containing the running total of the book value.
+     */
+    public double getBookValue() {
+        return Money.toDouble(bookValue);
+    }
+
+    /**
+     * Method returns the total commissions deducted from the gain of all investments.
+     * @return A double value containing the running total of the commissions.
+     */
+    public double getCommissions() {
+        return Money.toDouble(commissions);
+    }
+
+    /**
+     * Method recomputes the total gain from scratch by adding the gain of every investment.
+     * Large portfolios are valued in parallel on the common fork/join pool, the gains are exact
+     * micro-unit sums so the result doesn't depend on how the investments were split.
+     * @return A double value containing the sum of the gains of the investments.
+     */
+    public double computeGain() {
+        return Money.toDouble(ParallelValuation.totalGain(holdings, order, holdingCount));
+    }
+
+    /**
+     * Method recomputes the total gain from scratch by adding the gain of every investment.
+     * It can be used to check the running totals, which aren't modified. Totals are kept in exact
+     * micro-units, so any difference means a change bypassed them.
+     * @return A double value containing the recomputed gain minus the gain of the running totals.
+     */
+    public double verifyGain() {
+        return Money.toDouble(ParallelValuation.totalGain(holdings, order, holdingCount) - getGainMicros());
+    }
+
+    /**
+     * Private method removes the contribution of an investment from the running totals before it's modified.
+     * Every call has to be followed by a call to holdingChanged once the modification is done,
+     * unless the investment is removed from the portfolio.
+     * @param id An integer value containing the holding ID of the investment.
+     */
+    private void holdingChanging(int id) {
+        marketValue -= Money.multiply(holdings.getPriceMicros(id), holdings.getQuantity(id));
+        bookValue -= holdings.getBookValueMicros(id);
+        commissions -= holdings.isStock(id) ? Stock.COMMISSION_MICROS : MutualFund.COMMISSION_MICROS;
+    }
+
+    /**
+     * Private method adds the contribution of a new or modified investment to the running totals
+     * and moves it to its new price in the price index.
+     * @param id An integer value containing the holding ID of the investment.
+     */
+    private void holdingChanged(int id) {
+        marketValue += Money.multiply(holdings.getPriceMicros(id), holdings.getQuantity(id));
+        bookValue += holdings.getBookValueMicros(id);
+        commissions += holdings.isStock(id) ? Stock.COMMISSION_MICROS : MutualFund.COMMISSION_MICROS;
+        priceIndex.set(id, holdings.getPrice(id));
+
+        if (changes != null) {
+            changes.changed(id);
+        }
+        if (snapshotTree != null) {
+            snapshotTree.put(id, holdings.copyOf(id));
+        }
+    }
+
+    /**
+     * Method returns gain on all investments.
+     * It adds returns a String of each symbol followed by the gain on investment.
+     * @return A String object containing individual gains on investment.
+     */
+    public String getIndividualGains() {
+        // large portfolios are listed in parallel chunks joined in order
+        return ParallelValuation.individualGains(holdings, order, holdingCount);
+    }
+
+    /**
+     * Method searches for investments based on user defined criteria.
+     * User is prompted for search criteria (symbol, name keywords and price range).
+     * The user can skip any of the fields during entry.
+     * Method then outputs all Stock and MutualFund objects that match the criteria to the screen.
+     * @return A String object containing the matching investments separated by empty lines.
+     */
+    public String search (String symbol, String keywords, String lowerPrice, String higherPrice) throws Exception{
+        StringBuilder results = new StringBuilder("\n");
+
+        search(symbol, keywords, lowerPrice, higherPrice, 0, Integer.MAX_VALUE, 
+        investment -> results.append(investment.toString()).append("\n"));
+        return results.toString();
+    }
+
+    /**
+     * Method searches for investments based on user defined criteria and passes a page of the matches to a consumer.
+     * Any of the criteria can be skipped by passing an empty String.
+     * Matches are streamed one at a time, the portfolio must not be modified until the method returns.
+     * @param symbol String object containing the symbol of the required investment.
+     * @param keywords String object containing keywords that must all be in the name of the investments.
+     * @param lowerPrice String object containing the lowest price of the investments.
+     * @param higherPrice String object containing the highest price of the investments.
+     * @param offset An integer value containing the number of matches skipped before the first one passed.
+     * @param limit An integer value containing the maximum number of matches passed to the consumer.
+     * @param consumer A Consumer object accepting each matching Investment object.
+     * @return An integer value containing the number of investments passed to the consumer.
+     */
+    public int search (String symbol, String keywords, String lowerPrice, String higherPrice, 
+    int offset, int limit, Consumer<Investment> consumer) throws Exception {
+        PortfolioEvents.SearchEvent event = PortfolioEvents.search(symbol, keywords, lowerPrice, higherPrice);
+        long start = PortfolioMetrics.start();
+        boolean failed = true;
 
-        String transaction = "";
-        int investmentIndex;
-        // method terminates and Exception thrown in case the object wasn't found
-        investmentIndex = investmentExists(investments, symbol);
-        if (investmentIndex == -1) {
-            throw new Exception("ERROR: Invalid investment symbol, investment doesn't" + 
-            " exist in portfolio.");
+        try {
+            int passed = searchInvestments(symbol, keywords, lowerPrice, higherPrice, offset, limit, consumer, event);
+            failed = false;
+            return passed;
         }
-        investments.get(investmentIndex).sell(Integer.parseInt(quantity), Double.parseDouble(price));
-        
-        transaction += "Sold "+ quantity + " @ " + price + "$. New book value: "
-        + investments.get(investmentIndex).getBookValue() + "$\n";
+        finally {
+            PortfolioMetrics.record(PortfolioMetrics.Operation.SEARCH, start, failed);
+            if (event != null) {
+                event.succeeded = !failed;
+                event.commit();
+            }
+        }
+    }
 
-        // branch deletes the object at investmentIndex if quantity owned reaches 0 
-        if (investments.get(investmentIndex).getQuantity() == 0) {
-            removeMappedName(investments.get(investmentIndex), investmentIndex);
-            investments.remove(investmentIndex);
-            return transaction; // only transaction information is returned
+    /**
+     * Private method performing the search measured by search.
+     * @param event A started SearchEvent object receiving the number of candidates and results, may be null.
+     */
+    private int searchInvestments(String symbol, String keywords, String lowerPrice, String higherPrice,
+    int offset, int limit, Consumer<Investment> consumer, PortfolioEvents.SearchEvent event) throws Exception {
+        if (offset < 0 || limit < 0) {
+            throw new Exception("Offset and limit can't be negative.");
         }
 
-        // transaction and Investment information is returned
-        transaction += investments.get(investmentIndex).toString();
-        return transaction;
-    }
+        SearchIterator matches = matches(symbol, keywords, lowerPrice, higherPrice);
+        int skipped = 0, passed = 0;
 
-    /** 
-     * Method prompts the user to enter new prices for all investments.
-     * It then updates all the prices in the calling object's investment ArrayLists.
-     */ 
-    public String updatePortfolio(String price, int investmentIndex) throws Exception {
-        try {
-            investments.get(investmentIndex).setPrice(Double.parseDouble(price));
-            return investments.get(investmentIndex).toString();
+        // skipped matches are only counted and never passed to the consumer
+        while (passed < limit && matches.hasNext()) {
+            Investment investment = matches.next();
+            if (skipped < offset) {
+                skipped++;
+            }
+            else {
+                consumer.accept(investment);
+                passed++;
+            }
         }
-        catch (Exception e) {
-            throw new Exception("Invalid price. Try again");
+
+        if (event != null) {
+            event.candidates = matches.candidates;
+            event.results = passed;
         }
-    } 
+        return passed;
+    }
 
     /**
-     * Method computes the total gain on investments.
-     * It adds the gain value of all Stock and MutualFund objects and returns the sum.
-     * @return A double value containing the total gain on investments.
+     * Method completes a partially typed name or symbol into the investments it could refer to.
+     * The last word of the text is matched as a prefix of the name keywords and symbols,
+     * any words before it must be complete name keywords.
+     * Investments with the shortest matching keywords are returned first.
+     * @param text String object containing the typed text.
+     * @param limit An integer value containing the maximum number of investments returned.
+     * @return An ArrayList of the matching Investment objects.
      */
-    public double getGain() {
-        double sum = 0;
-        
-        // add gain of all Investment objects
-        for (Investment currentInvestment : investments) {
-            sum += currentInvestment.getGain();
+    public ArrayList<Investment> complete(String text, int limit) {
+        ArrayList<Investment> completions = new ArrayList<>();
+        if (isNull(text)) {
+            return completions;
+        }
+
+        String [] words = text.strip().toLowerCase().split("[ \n/,]+");
+        HoldingBitmap keywordIds = null;
+
+        // the complete words narrow down the investments the prefix can complete to
+        if (words.length > 1) {
+            keywordIds = matchKeywords(String.join(" ", Arrays.copyOf(words, words.length - 1)));
+            if (keywordIds.isEmpty()) {
+                return completions;
+            }
+        }
+
+        for (int id : prefixIndex.complete(words[words.length - 1], limit, keywordIds)) {
+            completions.add(holdings.get(id));
         }
 
-        return sum;
+        return completions;
     }
 
     /**
-     * Method returns gain on all investments.
-     * It adds returns a String of each symbol followed by the gain on investment.
-     * @return A String object containing individual gains on investment.
+     * Method searches for investments with names or symbols similar to a possibly misspelled text.
+     * Unlike keyword searches, words don't have to match a name keyword exactly.
+     * Investments sharing the most trigrams with the text are returned first.
+     * @param text String object containing the words to be searched for.
+     * @param limit An integer value containing the maximum number of investments returned.
+     * @return An ArrayList of the most similar Investment objects, most similar first.
      */
-    public String getIndividualGains() {
-        String gains = "";
-        
-        // add gain of all Investment objects
-        for (Investment currentInvestment : investments) {
-            gains += currentInvestment.getSymbol() + ": " + currentInvestment.getGain() + "\n";
+    public ArrayList<Investment> fuzzySearch(String text, int limit) {
+        ArrayList<Investment> matches = new ArrayList<>();
+        if (isNull(text)) {
+            return matches;
+        }
+
+        for (int id : trigramIndex.search(text, limit, FUZZY_SIMILARITY)) {
+            matches.add(holdings.get(id));
         }
 
-        return gains;
+        return matches;
     }
 
     /**
-     * Method searches for investments based on user defined criteria.
-     * User is prompted for search criteria (symbol, name keywords and price range).
-     * The user can skip any of the fields during entry.
-     * Method then outputs all Stock and MutualFund objects that match the criteria to the screen.
+     * Private method parses the search criteria and returns an iterator over the matching investments.
+     * The symbol, keyword and price indices are used to find the matching investments without a full scan.
+     * @return An Iterator object over the matching Investment objects.
      */
-    public String search (String symbol, String keywords, String lowerPrice, String higherPrice) throws Exception{
+    private SearchIterator matches (String symbol, String keywords, String lowerPrice, String higherPrice) throws Exception {
         // initialized low and high prices to lowest and highest doubles in java
         double lowPrice = Double.MIN_VALUE, highPrice = Double.MAX_VALUE;
-        String [] subStrings;
-        String priceRange = "";
-        String results = "\n";
+        boolean priceRange = false;
 
         // loop makes sure that user enters valid price range without any letters
         if (higherPrice.contains("([A-Za-z]+") || lowerPrice.contains("([A-Za-z]+")) { 
@@ -221,7 +1241,7 @@ public class Portfolio {
         
         // branch checks if priceRange is a single number and parses it to double
         if (!isNull(lowerPrice)) {
-            priceRange = lowerPrice + "-"; 
+            priceRange = true;
             try {
                 lowPrice = Double.parseDouble(lowerPrice);
             }
@@ -229,12 +1249,9 @@ public class Portfolio {
                 throw new Exception ("Invalid low price.");
             }
         }
-        else {
-            priceRange = "-";
-        }
 
         if (!isNull(higherPrice)) {
-            priceRange += higherPrice;
+            priceRange = true;
             try {
                 highPrice = Double.parseDouble(higherPrice);
             }
@@ -242,168 +1259,168 @@ public class Portfolio {
                 throw new Exception ("Invalid high price.");
             }
         }
-        // Note: branch isn't entered if user doesn't enter a range at all 
-        
-        // if not null, all substrings should be present in objects at validIndices of investments
-        // otherwise return from method when validIndices is reduced to 0 size
+        // Note: the price index isn't used if user doesn't enter a range at all 
+
+        // if not null, all keywords should be present in the names of investments with keywordIds
+        HoldingBitmap keywordIds = null;
         if (!isNull(keywords)) {
-            ListIterator<Integer> validIndices = null;
-            ArrayList<Integer> clonedIndices = new ArrayList<>();
-            subStrings = keywords.split("[ \n/,]+");
-
-            for (String subString : subStrings) {
-                // exit if a subString doesn't exist in the hashmap
-                if (relevantInvestments.get(subString.toLowerCase()) == null) {
-                    return results;
-                }
-                else if (validIndices == null || (!validIndices.hasPrevious() && !validIndices.hasNext())) {
-                    // initialize validIndices with the first indices values from the first subString in the hashMap
-                    if (relevantInvestments.get(subString.toLowerCase()) != null) {
-                        validIndices = (ListIterator<Integer>)relevantInvestments.get(subString.toLowerCase()).listIterator();
-
-                        // copy the indices into a cloned ArrayList to avoid modifying the original List
-                        while (validIndices.hasNext()) {
-                            clonedIndices.add(validIndices.next());
-                        }
-
-                        validIndices = clonedIndices.listIterator();
-                    }
-                    else {
-                        return results;
-                    }
-                }
-                else {
-                    int temp;
-                    while (validIndices.hasNext()) {
-                        temp = validIndices.next();
-                        
-                        // removes any indices that don't contain the subString in current main loop iteration 
-                        if(!relevantInvestments.get(subString.toLowerCase()).contains(temp)) {
-                            validIndices.remove();
-                            
-                            // exit method to when indices dont match in all keywords
-                            if (validIndices == null || (!validIndices.hasPrevious() && !validIndices.hasNext())) {
-                                return results;
-                            }
-                        }
-                    }
-                }
+            keywordIds = matchKeywords(keywords);
+        }
 
-                // reset iterator to the start of array
-                while (validIndices.hasPrevious()) {
-                    validIndices.previous();
-                }
+        // a symbol matches at most one investment, which is checked against the keywords
+        if (!isNull(symbol)) {
+            HoldingBitmap symbolIds = new HoldingBitmap();
+            Integer id = symbolIndex.get(symbolKey(symbol));
+            if (id != null && (keywordIds == null || keywordIds.contains(id))) {
+                symbolIds.add(id);
             }
-    
 
-            // loop through all investment objects with valid keys
-            while (validIndices.hasNext()) {
-                // updates keywords to the name of Investment to pass the equals method 
-                // (we established that keys are valid and were only checking objects with valid keys)
-                int index = validIndices.next();;
-                keywords = null;
-                
-                if (isNull(symbol)) {
-                    symbol = null;
-                }
+            return new SearchIterator(symbolIds.iterator(), lowPrice, highPrice);
+        }
 
-                // prints all investments within range (if applicable) and with valid symbol/substrings
-                if (investments.get(index).equals(symbol, keywords) && isNull(priceRange)) {
-                    results += investments.get(index).toString() + "\n"; 
-                }
-                else if (investments.get(index).equals(symbol, keywords) && !isNull(priceRange) 
-                && investments.get(index).getPrice() >= lowPrice && 
-                investments.get(index).getPrice() <= highPrice) {
-                    results += investments.get(index).toString() + "\n"; 
-                }
+        // the price index finds the investments in the range when only a range was entered
+        if (priceRange && keywordIds == null) {
+            return new SearchIterator(inPortfolioOrder(priceIndex.range(lowPrice, highPrice)), lowPrice, highPrice);
+        }
+
+        // investments with valid keys are narrowed down to the range (if applicable)
+        if (keywordIds != null) {
+            if (priceRange && !keywordIds.isEmpty()) {
+                keywordIds.and(priceIndex.rangeBitmap(lowPrice, highPrice));
             }
 
-            return results;
+            return new SearchIterator(inPortfolioOrder(keywordIds.iterator()), lowPrice, highPrice);
         }
         
-        // loop only used when keywords were not entered by the user
-        for (Investment curr : investments) {
-            // updates keywords to null to pass the equals method 
-            // (we established that keys are valid and were only checking objects with valid keys)
-            keywords = null;
-              
-            // in case the symbol is empty or consists of spaces only set it to null
-            if (isNull(symbol)) {
-                symbol = null;
+        // all investments are checked when no criteria were entered by the user
+        return new SearchIterator(Arrays.stream(order, 0, holdingCount).iterator(), lowPrice, highPrice);
+    }
+
+    /**
+     * Private method sorts holding IDs found by an index into portfolio order, so searches list their
+     * results in the same order whichever index found them.
+     * @param ids A PrimitiveIterator of the holding IDs in index order.
+     * @return A PrimitiveIterator of the same holding IDs in portfolio order.
+     */
+    private PrimitiveIterator.OfInt inPortfolioOrder(PrimitiveIterator.OfInt ids) {
+        long [] keys = new long[16];
+        int count = 0;
+
+        // each key holds the sequence number above the holding ID, so sorting the keys sorts the IDs
+        while (ids.hasNext()) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
             }
-            
-            // prints all investments within range (if applicable) and with valid symbol/substrings
-            if (isNull(priceRange) && curr.equals(symbol, keywords)) {
-                results += curr.toString() + "\n"; 
+            int id = ids.nextInt();
+            keys[count++] = (long)sequences[id] << 32 | id;
+        }
+        Arrays.sort(keys, 0, count);
+
+        return Arrays.stream(keys, 0, count).mapToInt(key -> (int)key).iterator();
+    }
+
+    /**
+     * Private method finds the investments with all keywords in their name.
+     * The bitmaps of the keywords are intersected starting from a copy of the smallest bitmap.
+     * @param keywords String object containing the name keywords separated by spaces, commas or slashes.
+     * @return A HoldingBitmap object containing the holding IDs of the matching investments.
+     */
+    private HoldingBitmap matchKeywords(String keywords) {
+        String [] subStrings = keywords.split("[ \n/,]+");
+        HoldingBitmap [] keywordIds = new HoldingBitmap[subStrings.length];
+        int smallest = 0;
+
+        for (int i = 0; i < subStrings.length; i++) {
+            keywordIds[i] = relevantInvestments.get(subStrings[i].toLowerCase());
+
+            // no investment matches if a subString doesn't exist in the hashmap
+            if (keywordIds[i] == null) {
+                return new HoldingBitmap();
             }
-            else if (curr.equals(symbol, keywords) && !isNull(priceRange) 
-            && curr.getPrice() >= lowPrice && 
-            curr.getPrice() <= highPrice) {
-                results += curr.toString() + "\n"; 
+            else if (keywordIds[i].cardinality() < keywordIds[smallest].cardinality()) {
+                smallest = i;
             }
         }
-        return results;
+
+        // intersection starts from a copy of the smallest bitmap to avoid modifying the index
+        HoldingBitmap validIds = new HoldingBitmap(keywordIds[smallest]);
+        for (int i = 0; i < keywordIds.length && !validIds.isEmpty(); i++) {
+            if (i != smallest) {
+                validIds.and(keywordIds[i]);
+            }
+        }
+
+        return validIds;
+    }
+
+    /**
+     * Private method checks if the price of an investment is within a price range.
+     * @param id An integer value containing the holding ID of the investment to be checked.
+     * @param lowPrice A double value containing the lowest price in the range.
+     * @param highPrice A double value containing the highest price in the range.
+     * @return A boolean value that indicates the price is within the range.
+     */
+    private boolean inRange(int id, double lowPrice, double highPrice) {
+        return holdings.getPrice(id) >= lowPrice && holdings.getPrice(id) <= highPrice;
     }
 
     
     /**
      * Method initializes the investments ArrayList attribute of the calling object from a file.
+     * The file is memory mapped and scanned without creating a String per line.
      * @param fileName String object containing the name of the file to load the investments from.
      */
     public void loadInvestments(String fileName) throws Exception {
+        loadInvestments(fileName, null);
+    }
+
+    /**
+     * Method initializes the investments ArrayList attribute of the calling object from a file, reporting its progress.
+     * Loading is cancelled by interrupting the calling thread, the investments read before are kept.
+     * @param fileName String object containing the name of the file to load the investments from.
+     * @param progress An IntConsumer receiving the percentage of the file read, may be null.
+     */
+    public void loadInvestments(String fileName, IntConsumer progress) throws Exception {
+        PortfolioEvents.LoadEvent event = PortfolioEvents.load(fileName);
+        int loadedFrom = holdingCount;
+        long start = PortfolioMetrics.start();
+        boolean failed = true;
+
+        try {
+            readInvestments(fileName, progress);
+            failed = false;
+        }
+        finally {
+            PortfolioMetrics.record(PortfolioMetrics.Operation.LOAD, start, failed);
+            if (event != null) {
+                event.holdings = holdingCount - loadedFrom;
+                event.bytes = fileSize(fileName);
+                event.succeeded = !failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Private method performing the load measured by loadInvestments.
+     */
+    private void readInvestments(String fileName, IntConsumer progress) throws Exception {
         if (isNull(fileName)) {
             throw new Exception ("ERROR: Invalid file name.");
         }
 
         try {
-            File file = new File(fileName.strip());
-
-            Scanner input = new Scanner(file);
-            String [] tokens;
-            int investmentIndex = -1;
-            
-            // loop adds investment information in the file to the investments ArrayList
-            while (input.hasNextLine()) {
-                // first token is the type of value in the second token
-                tokens = input.nextLine().split("\"");
-                
-                // based on token[0], token[1] is used to set attributes of an investment or declare a new investment
-                if(tokens[0].contains("type = ")) {
-                    if(tokens[1].toLowerCase().contains("stock")) {
-                        investments.add(new Stock());
-                    }
-                    else if (tokens[1].toLowerCase().contains("mutualfund")) {
-                        investments.add(new MutualFund());
-                    }
-                    else {
-                        input.close();
-                        return;
-                    }
-                    investmentIndex = investments.size() - 1;
-                }
-                else if(tokens[0].toLowerCase().contains("symbol = ")) {
-                    investments.get(investmentIndex).setSymbol(tokens[1]);
-                }
-                else if(tokens[0].toLowerCase().contains("name = ")) {
-                    investments.get(investmentIndex).setName(tokens[1]);
-                    mapName(investments.get(investmentIndex), investmentIndex);
-                }
-                else if(tokens[0].toLowerCase().contains("quantity = ")) {
-                    investments.get(investmentIndex).setQuantity(Integer.parseInt(tokens[1].strip()));
-                }
-                else if(tokens[0].toLowerCase().contains("price = ")) {
-                    investments.get(investmentIndex).updatePrice(Double.parseDouble(tokens[1].strip()));
-                }
-                else if(tokens[0].toLowerCase().contains("bookvalue = ")) {
-                    investments.get(investmentIndex).setBookValue(Double.parseDouble(tokens[1].strip()));
-                }
-            }
-            input.close();
+            new InvestmentFileReader(this::addHolding).read(fileName.strip(), progress);
+        }
+        catch (InterruptedException e) {
+            throw e;
         }
         catch (Exception e) {
             throw new Exception("Failed to open file for reading.");
         }
-        
+        finally {
+            publish();
+        }
     }
 
     /**
@@ -411,6 +1428,42 @@ public class Portfolio {
      * @param fileName String object containing the name of the file to save the investments to.
      */
     public void saveInvestments(String fileName) throws Exception {
+        PortfolioEvents.SaveEvent event = PortfolioEvents.save(fileName);
+        long start = PortfolioMetrics.start();
+        boolean failed = true;
+
+        try {
+            writeInvestments(fileName);
+            failed = false;
+        }
+        finally {
+            PortfolioMetrics.record(PortfolioMetrics.Operation.SAVE, start, failed);
+            if (event != null) {
+                event.holdings = holdingCount;
+                event.bytes = fileSize(fileName);
+                event.succeeded = !failed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Private method reads the size of a file for the persistence events.
+     * @return A long value containing the size in bytes, 0 if the file can't be read.
+     */
+    private static long fileSize(String fileName) {
+        try {
+            return isNull(fileName) ? 0 : Files.size(Paths.get(fileName.strip()));
+        }
+        catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Private method performing the save measured by saveInvestments.
+     */
+    private void writeInvestments(String fileName) throws Exception {
         // check for illegal file name
         if (isNull(fileName)) {
             throw new Exception ("ERROR: failed to open file for reading.");
@@ -420,8 +1473,8 @@ public class Portfolio {
             PrintWriter file = new PrintWriter(fileName, "UTF-8");
             
             // print all investments to the file
-            for (Investment curreInvestment : investments) {
-                file.print(curreInvestment.toString());
+            for (int i = 0; i < holdingCount; i++) {
+                file.print(holdings.get(order[i]).toString());
             }
             
             file.close();
@@ -432,14 +1485,202 @@ public class Portfolio {
     }
 
     /**
-     * Private method used as criteria for other methods in class.
+     * Method adds the investments of a binary snapshot file to the calling object.
+     * Snapshots are written by saveSnapshot, the text format stays available through loadInvestments.
+     * @param fileName String object containing the name of the snapshot file.
+     */
+    public void loadSnapshot(String fileName) throws Exception {
+        if (isNull(fileName)) {
+            throw new Exception ("ERROR: Invalid file name.");
+        }
+
+        try {
+            journalSequence = Math.max(journalSequence, SnapshotFile.read(fileName.strip(), this::addHolding));
+        }
+        catch (Exception e) {
+            throw new Exception("Failed to read snapshot: " + e.getMessage());
+        }
+        finally {
+            publish();
+        }
+    }
+
+    /**
+     * Method saves the investments of the calling object to a binary snapshot file.
+     * The snapshot stores symbols and names in a string table and the numbers in fixed width columns,
+     * the text format stays available through saveInvestments.
+     * @param fileName String object containing the name of the snapshot file.
+     */
+    public void saveSnapshot(String fileName) throws Exception {
+        if (isNull(fileName)) {
+            throw new Exception ("ERROR: Invalid file name.");
+        }
+
+        try {
+            SnapshotFile.write(fileName.strip(), holdings, order, holdingCount, journalSequence);
+        }
+        catch (Exception e) {
+            throw new Exception("Failed to write snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method restores the calling object after a restart and starts journaling its changes.
+     * The snapshot is loaded if it exists and the journal records appended after it are replayed.
+     * Investments loaded from other files afterwards are only durable once checkpoint is called.
+     * @param snapshotFileName String object containing the name of the snapshot file written by checkpoint.
+     * @param journal A TransactionJournal object recording the changes of the portfolio.
+     */
+    public void recover(String snapshotFileName, TransactionJournal journal) throws Exception {
+        if (isNull(snapshotFileName) || journal == null) {
+            throw new Exception ("ERROR: Invalid file name.");
+        }
+
+        this.journal = null;
+        if (Files.exists(Paths.get(snapshotFileName.strip()))) {
+            loadSnapshot(snapshotFileName);
+        }
+
+        try {
+            journal.replay(journalSequence, this::replay);
+            journal.resumeAfter(journalSequence);
+        }
+        catch (Exception e) {
+            throw new Exception("Failed to replay journal: " + e.getMessage());
+        }
+        finally {
+            publish();
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Method writes a snapshot of the calling object and empties its journal.
+     * Without a journal only the snapshot is written.
+     * @param snapshotFileName String object containing the name of the snapshot file.
+     */
+    public void checkpoint(String snapshotFileName) throws Exception {
+        saveSnapshot(snapshotFileName);
+
+        // the snapshot and its directory entry are on disk once saveSnapshot returns,
+        // records up to the sequence number in the snapshot are skipped by recover, so a crash here loses nothing
+        if (journal != null) {
+            journal.truncate();
+        }
+    }
+
+    /**
+     * Private method applies a journal record replayed by recover.
+     * @param record A Record object decoded from the journal.
+     */
+    private void replay(TransactionJournal.Record record) throws Exception {
+        TradeStatus status = TradeStatus.OK;
+
+        // trades are replayed through the typed methods so no Strings are parsed
+        switch (record.kind) {
+            case TransactionJournal.BUY:
+                status = buyHolding(record.stock, record.symbol, record.name, record.quantity,
+                priceMicros(record.price));
+                break;
+            case TransactionJournal.SELL:
+                status = sellHolding(record.symbol, record.quantity, priceMicros(record.price));
+                break;
+            case TransactionJournal.PRICE:
+                // journals written before prices were validated may hold prices that don't fit, they were never applied
+                Integer id = symbolIndex.get(symbolKey(record.symbol));
+                if (id != null && fitsPrice(id, record.price)) {
+                    updatePrice(id, record.price);
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (!status.isTraded()) {
+            throw new Exception(status.getMessage());
+        }
+        journalSequence = record.sequence;
+    }
+
+    /**
+     * Method starts tracking the changes of the calling object, changes tracked before are discarded.
+     */
+    void trackChanges() {
+        changes = new ChangeTracker();
+    }
+
+    /**
+     * Method counts the changes tracked since they were last drained, it may be called from any thread.
+     * @return An integer value containing the number of changes, 0 when changes aren't tracked.
+     */
+    int pendingChanges() {
+        ChangeTracker tracker = changes;
+        return tracker == null ? 0 : tracker.getCount();
+    }
+
+    /**
+     * Method returns the changes tracked since they were last drained in the text format and starts tracking anew.
+     * Sold out investments are written with a quantity of 0 before the current state of the changed investments.
+     * @return String object containing the changed investments, empty if nothing changed.
+     */
+    String drainChanges() {
+        StringBuilder delta = new StringBuilder();
+        ChangeTracker tracker = changes;
+
+        if (tracker == null) {
+            return "";
+        }
+        changes = new ChangeTracker();
+
+        for (Investment investment : tracker.removed) {
+            delta.append(investment.toString());
+        }
+
+        PrimitiveIterator.OfInt ids = tracker.changedIds.iterator();
+        while (ids.hasNext()) {
+            delta.append(holdings.get(ids.nextInt()).toString());
+        }
+
+        return delta.toString();
+    }
+
+    /**
+     * Method replaces the state of an investment with a state read from a file of changes.
+     * An investment with a quantity of 0 is removed, one that isn't owned is added to the end of the portfolio.
+     * @param investment An Investment object containing the latest state of the investment.
+     */
+    void restoreHolding(Investment investment) {
+        Integer id = investment.getSymbol() == null ? null : symbolIndex.get(symbolKey(investment.getSymbol()));
+
+        if (id != null) {
+            // the state is replaced in place unless the indexed name or type differ
+            if (investment.getQuantity() > 0 && holdings.isStock(id) == investment instanceof Stock &&
+            Objects.equals(holdings.getName(id), investment.getName())) {
+                holdingChanging(id);
+                holdings.add(id, investment);
+                holdingChanged(id);
+                publish();
+                return;
+            }
+
+            removeHolding(id);
+        }
+
+        if (investment.getQuantity() > 0) {
+            addHolding(investment);
+        }
+        publish();
+    }
+
+    /**
+     * Method used as criteria for other methods in the package.
      * It check if a String is null, empty or consists of spaces only.
      * If it matches the criteria above, true is returned.
      * If String contains other chars then false is returned.
      * @param string String object passed from another method to be checked.
      * @return Boolean value indicating String criteria match.
      */
-    private static boolean isNull (String string) {
+    static boolean isNull (String string) {
         if (string == null || string.equals("[\n ]*") || string.equals("")) {
             return true;
         }
@@ -448,16 +1689,18 @@ public class Portfolio {
     }
 
     /**
-     * Private method checks if a Strings are null, empty or consists of spaces only.
+     * Method checks if the Strings are null, empty or consists of spaces only.
      * It also checks if the quantiy and price values are lower than or equal 0 
      * If it matches the criteria above, appropriate exceptions are thrown that can be handled by the caller.
      * Nothing is returned and execution continues in case criteria doesn't match.
      * @param quantity String object containing the quantity of the investment.
      * @param price String object containing the price of the investment.
      */
-    private void validateNums(String quantity, String price) throws Exception {
+    static void validateNums(String quantity, String price) throws Exception {
         try {
-            if (Double.parseDouble(price) <= 0) {
+            // NaN, infinite and too large prices can't be kept as Money micro-units
+            double value = Double.parseDouble(price);
+            if (!(value > 0) || !Money.fits(value)) {
                 throw new Exception("Price needs to be a number higher than 0. Try again.");
             }
         }
@@ -478,6 +1721,7 @@ public class Portfolio {
     /**
      * Method searches for an Investment object in ArrayList of investment objects.
      * The symbol is the used  criteria to find the desired object.
+     * The search is linear, getInvestment should be used to look up investments owned by the portfolio.
      * @param investments An ArrayList of Investment objects to be searched.
      * @param symbol A String object containing the symbol used as criteria for the search algorithm.
      * @return An integer value containing the index of the Investment object in the ArrayList if found. -1 is returned otherwise.
@@ -497,54 +1741,113 @@ public class Portfolio {
     }
     
     /**
-     * Method adds index of an object in ArrayList investments to values in the hashMap
+     * Method normalizes a symbol into the key used by the symbolIndex HashMap, ConcurrentPortfolio and TickFileReader.
+     * The root locale is used so keys don't depend on the default locale of the machine.
+     * @param symbol String object containing the symbol to be normalized.
+     * @return A String object containing the lowercase symbol.
+     */
+    static String symbolKey(String symbol) {
+        return symbol.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Method adds the holding ID of an Investment object to values in the hashMap
      * The name keywords of the Investment object is used as the keys in the hashMap
      * @param object An Investment object with the required name to be tokenized and added to the hashMap.
-     * @param investmentIndex the index of the object parameter in the ArrayList investments attribute of the calling portfolio object.
+     * @param id the holding ID of the object parameter in the calling portfolio object.
      */
-    private void mapName(Investment object, int investmentIndex) {
+    private void mapName(Investment object, int id) {
+        if (object.getName() == null) {
+            return;
+        }
         String [] tokens = object.getName().split("[ ]+");
-        ArrayList<Integer> tempArray;
 
-        // for each name tokens index of investment is added to the value of the token in hashMap relevantInvestments  
+        // for each name token the ID of investment is added to the value of the token in hashMap relevantInvestments  
         for (String token : tokens) {
-            // initialize the hashmap when its empty
+            // initialize the ID bitmap when the token is new to the hashmap
             if (relevantInvestments.get(token.toLowerCase()) == null) {
-                relevantInvestments.put(token.toLowerCase(), new ArrayList<Integer>(Arrays.asList(investmentIndex)));
-            }
-            else {
-                tempArray = relevantInvestments.get(token.toLowerCase());
-                // only adds the index if same investment doesn't exist
-                if (!tempArray.contains(investmentIndex)) {
-                    tempArray.add(investmentIndex);
-                }
+                relevantInvestments.put(token.toLowerCase(), new HoldingBitmap());
             }
+
+            // bitmaps only add the ID if same investment doesn't exist
+            relevantInvestments.get(token.toLowerCase()).add(id);
         }
 
     }
 
     /**
-     * Method removes index of an object in ArrayList investments from values in the hashMap
-     * The name keywords of the Investment object is used as the keys in the hashMap
-     * @param object An Investment object with the required name to be tokenized for keys in the hashMap.
-     * @param investmentIndex the index of the object parameter in the ArrayList investments to be removed from the values of each key.
+     * Method removes the holding ID of an investment from values in the hashMap
+     * The name keywords of the investment are used as the keys in the hashMap
+     * @param name String object containing the name of the investment to be tokenized for keys in the hashMap.
+     * @param id the holding ID of the investment to be removed from the values of each key.
      */
-    private void removeMappedName (Investment object, int investmentIndex) {
-        String [] tokens = object.getName().split("[ ]+");
-        ArrayList<Integer> tempArray;
+    private void removeMappedName (String name, int id) {
+        if (name == null) {
+            return;
+        }
+        String [] tokens = name.split("[ ]+");
+        HoldingBitmap tempIds;
         
-        // loops through all name keywords and removes the investmentIndex from the index list
+        // loops through all name keywords and removes the ID from the ID bitmap
         for (String token : tokens) {
-            tempArray = relevantInvestments.get(token.toLowerCase());
+            tempIds = relevantInvestments.get(token.toLowerCase());
             
-            // branch removes the hash map key if the only value is removed element index
-            if (tempArray.size() == 1) {
-                relevantInvestments.remove(token.toLowerCase());
+            // repeated keywords in a name are already removed
+            if (tempIds == null) {
                 continue;
             }
-            
-            // otherwise the single index is removed from the index list 
-            tempArray.remove(investmentIndex);
+
+            // the hash map key is removed if the removed ID was its only value
+            tempIds.remove(id);
+            if (tempIds.isEmpty()) {
+                relevantInvestments.remove(token.toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Iterator over the investments matching a search.
+     * Candidates are holding IDs found by the indices or all IDs in the portfolio order,
+     * only the candidates within the price range are returned.
+     */
+    private class SearchIterator implements Iterator<Investment> {
+        private PrimitiveIterator.OfInt ids;
+        private double lowPrice, highPrice;
+        private int next = -1;
+
+        /**
+         * Number of investments checked against the price range so far.
+         */
+        int candidates = 0;
+
+        SearchIterator(PrimitiveIterator.OfInt ids, double lowPrice, double highPrice) {
+            this.ids = ids;
+            this.lowPrice = lowPrice;
+            this.highPrice = highPrice;
+        }
+
+        public boolean hasNext() {
+            // look ahead until a candidate within the price range is found
+            while (next < 0 && ids.hasNext()) {
+                int candidate = ids.nextInt();
+                candidates++;
+                if (inRange(candidate, lowPrice, highPrice)) {
+                    next = candidate;
+                }
+            }
+
+            return next >= 0;
+        }
+
+        public Investment next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // only matching investments are requested from the storage engine
+            Investment current = holdings.get(next);
+            next = -1;
+            return current;
         }
     }
 
@@ -554,14 +1857,23 @@ public class Portfolio {
      * @return A String object containing all the attribute values of all objects in the ArrayLists. 
      */
     public String toString() {
-        String portfolio = ""; // empty String 
+        StringBuilder portfolio = new StringBuilder(); // empty String 
 
         // adds all Investment objects attributes
-        for (Investment currentInvestment : investments) {
-            portfolio += currentInvestment.toString();
+        for (int i = 0; i < holdingCount; i++) {
+            appendText(portfolio, holdings.get(order[i]));
         }
 
-        return portfolio; // return final String
+        return portfolio.toString(); // return final String
+    }
+
+    /**
+     * Method appends an investment in the text format of toString, shared with ConcurrentPortfolio.
+     * @param text A StringBuilder object the investment is appended to.
+     * @param investment An Investment object to be appended.
+     */
+    static void appendText(StringBuilder text, Investment investment) {
+        text.append(investment.toString());
     }
 
     /**
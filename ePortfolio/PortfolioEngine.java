@@ -0,0 +1,419 @@
+package ePortfolio;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ *  PortfolioEngine class runs the portfolios of many accounts in a single process without a GUI.
+ *  Every account has its own queue of commands which run one at a time in the order they were submitted,
+ *  commands of different accounts run in parallel. Commands run on virtual threads when the Java runtime
+ *  has them, otherwise on a work stealing pool using every processor.
+ *  Portfolios are loaded from their snapshot file by the first command of the account and saved and
+ *  unloaded once the account stays idle, only portfolios with changes are saved.
+ */
+public class PortfolioEngine implements Closeable {
+    /**
+     * Extension of the snapshot files of the accounts.
+     */
+    public static final String FILE_EXTENSION = ".epfs";
+
+    /**
+     * Largest number of commands an account runs before other accounts get their turn.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * Account IDs are used as file names, so only these characters are accepted.
+     */
+    private static final Pattern ACCOUNT_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+
+    /**
+     *  Command interface represents an operation run on the portfolio of an account.
+     */
+    public interface Command<T> {
+        /**
+         * Method runs the operation, the portfolio is only used by one command at a time.
+         * @param portfolio A Portfolio object of the account.
+         * @return The result of the operation.
+         */
+        T run(Portfolio portfolio) throws Exception;
+    }
+
+    private final Path directory;
+    private final long idleMillis;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor evictor;
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private final AtomicInteger loadedCount = new AtomicInteger();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor declares a new PortfolioEngine object keeping the snapshot files in a directory.
+     * @param directory String object containing the name of the directory of the snapshot files.
+     * @param idleMillis A long value containing the time in milliseconds after which an idle portfolio is unloaded.
+     */
+    public PortfolioEngine(String directory, long idleMillis) throws Exception {
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("ERROR: Idle time needs to be higher than 0.");
+        }
+
+        this.directory = Paths.get(directory.strip());
+        this.idleMillis = idleMillis;
+        Files.createDirectories(this.directory);
+
+        this.executor = newExecutor();
+        this.evictor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "portfolio-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Method submits a command to the queue of an account.
+     * @param accountId String object containing the ID of the account, used as its file name.
+     * @param command A Command object run on the portfolio of the account.
+     * @return A CompletableFuture completed with the result of the command, or exceptionally with its Exception.
+     */
+    public <T> CompletableFuture<T> submit(String accountId, Command<T> command) {
+        if (accountId == null || !ACCOUNT_ID.matcher(accountId).matches()) {
+            throw new IllegalArgumentException("ERROR: Invalid account ID \"" + accountId + "\".");
+        }
+        if (closed) {
+            throw new IllegalStateException("ERROR: The engine is closed.");
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Account account = accounts.computeIfAbsent(accountId, Account::new);
+
+        account.lastUsed = System.currentTimeMillis();
+        account.enqueue(() -> {
+            try {
+                result.complete(command.run(account.getPortfolio()));
+            }
+            catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, result);
+
+        return result;
+    }
+
+    /**
+     * Method submits a purchase to the queue of an account, see Portfolio.buy.
+     * @return A CompletableFuture completed with the purchased investment information.
+     */
+    public CompletableFuture<String> buy(String accountId, String type, String symbol, String name,
+    String quantity, String price) {
+        return submit(accountId, portfolio -> portfolio.buy(type, symbol, name, quantity, price));
+    }
+
+    /**
+     * Method submits a sale to the queue of an account, see Portfolio.sell.
+     * @return A CompletableFuture completed with the transaction information.
+     */
+    public CompletableFuture<String> sell(String accountId, String symbol, String quantity, String price) {
+        return submit(accountId, portfolio -> portfolio.sell(symbol, quantity, price));
+    }
+
+    /**
+     * Method submits a request for the total gain of an account.
+     * @return A CompletableFuture completed with the total gain on investments.
+     */
+    public CompletableFuture<Double> getGain(String accountId) {
+        return submit(accountId, Portfolio::getGain);
+    }
+
+    /**
+     * Method submits a save of an account, it's only written if its portfolio is loaded and changed.
+     * @return A CompletableFuture completed once the portfolio is saved.
+     */
+    public CompletableFuture<Void> save(String accountId) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Account account = accounts.get(accountId);
+
+        if (account == null) {
+            result.complete(null);
+            return result;
+        }
+
+        account.enqueue(() -> {
+            try {
+                account.save();
+                result.complete(null);
+            }
+            catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, result);
+
+        return result;
+    }
+
+    /**
+     * An accessor method that reads the number of accounts that received commands.
+     * @return The integer number of accounts, loaded or not.
+     */
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * An accessor method that reads the number of portfolios currently loaded.
+     * @return The integer number of loaded portfolios.
+     */
+    public int getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    /**
+     * An accessor method that reads the number of portfolios loaded since the engine started.
+     * @return The long number of loads, including loads of accounts without a file.
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * An accessor method that reads the number of idle portfolios unloaded since the engine started.
+     * @return The long number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Method stops accepting commands, waits for the queued ones and saves every changed portfolio.
+     * Accounts that couldn't be saved are listed in the IllegalStateException thrown.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        evictor.shutdownNow();
+
+        ArrayList<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (String accountId : accounts.keySet()) {
+            saves.add(save(accountId));
+        }
+
+        StringBuilder failed = new StringBuilder();
+        for (int i = 0; i < saves.size(); i++) {
+            try {
+                saves.get(i).join();
+            }
+            catch (Exception e) {
+                // join wraps the failure of the save, a cancelled save has no cause
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                failed.append(failed.length() == 0 ? "" : ", ")
+                .append(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            }
+        }
+        executor.shutdown();
+
+        if (failed.length() > 0) {
+            throw new IllegalStateException("ERROR: Failed to save portfolios: " + failed);
+        }
+    }
+
+    /**
+     * Private method run by the evictor, queuing the unloading of every portfolio idle for longer than idleMillis.
+     * The account is checked again by the queued task, since a command may have arrived meanwhile.
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        for (Account account : accounts.values()) {
+            if (account.loaded && now - account.lastUsed >= idleMillis && account.queue.isEmpty()) {
+                account.enqueue(account::evictIfIdle, null);
+            }
+        }
+    }
+
+    /**
+     * Private method creates the executor running the commands, a virtual thread per task on runtimes
+     * having virtual threads and a work stealing pool otherwise. The factory method is looked up at runtime
+     * so the class still compiles and runs on older runtimes.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newWorkStealingPool();
+        }
+    }
+
+    /**
+     *  QueuedTask class pairs a queued task with the CompletableFuture it completes,
+     *  so the future can still be completed if the task never runs or fails unexpectedly.
+     */
+    private static class QueuedTask {
+        final Runnable action;
+        final CompletableFuture<?> result;
+
+        QueuedTask(Runnable action, CompletableFuture<?> result) {
+            this.action = action;
+            this.result = result;
+        }
+
+        void fail(Throwable error) {
+            if (result != null) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     *  Account class keeps the queue of commands and the portfolio of an account.
+     *  The queue is drained by one task at a time, so only one thread uses the portfolio at any time.
+     */
+    private class Account {
+        final String id;
+        final Path file;
+        final ConcurrentLinkedQueue<QueuedTask> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+        volatile boolean loaded = false;
+        volatile long lastUsed = System.currentTimeMillis();
+        private Portfolio portfolio = null;
+
+        Account(String id) {
+            this.id = id;
+            this.file = directory.resolve(id + FILE_EXTENSION);
+        }
+
+        /**
+         * Method adds a task to the queue and starts draining it unless a drain is already running.
+         * @param task A Runnable object completing its own result.
+         * @param result A CompletableFuture completed exceptionally if the task can't run, may be null.
+         */
+        void enqueue(Runnable task, CompletableFuture<?> result) {
+            queue.add(new QueuedTask(task, result));
+            schedule();
+        }
+
+        /**
+         * Method starts a drain unless one is already running.
+         * If the executor rejects it, because the engine is shutting down, the queued tasks fail instead of
+         * waiting forever.
+         */
+        private void schedule() {
+            if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                executor.execute(this::drain);
+            }
+            catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                IllegalStateException error = new IllegalStateException("ERROR: The engine is closed.", e);
+                QueuedTask task;
+                while ((task = queue.poll()) != null) {
+                    task.fail(error);
+                }
+            }
+        }
+
+        /**
+         * Method runs a batch of the queued tasks, another drain is started if tasks are left so
+         * a busy account doesn't keep the others waiting.
+         * The account is scheduled again even if a task throws an Error, whose task fails with it.
+         */
+        private void drain() {
+            try {
+                QueuedTask task;
+                for (int i = 0; i < BATCH && (task = queue.poll()) != null; i++) {
+                    try {
+                        task.action.run();
+                    }
+                    catch (Throwable e) {
+                        task.fail(e);
+                        throw e;
+                    }
+                }
+            }
+            finally {
+                scheduled.set(false);
+                schedule();
+            }
+        }
+
+        /**
+         * Method returns the portfolio, loading it from its file if it isn't loaded. Run by queued tasks only.
+         */
+        Portfolio getPortfolio() throws Exception {
+            if (portfolio == null) {
+                Portfolio loading = new Portfolio();
+                if (Files.exists(file)) {
+                    loading.loadSnapshot(file.toString());
+                }
+                loading.trackChanges();
+
+                portfolio = loading;
+                loaded = true;
+                loadedCount.incrementAndGet();
+                loadCount.incrementAndGet();
+            }
+
+            return portfolio;
+        }
+
+        /**
+         * Method saves the portfolio if it's loaded and changed since it was loaded or saved. Run by queued tasks only.
+         */
+        void save() throws Exception {
+            if (portfolio != null && portfolio.pendingChanges() > 0) {
+                try {
+                    portfolio.saveSnapshot(file.toString());
+                }
+                catch (Exception e) {
+                    throw new Exception(id + ": " + e.getMessage());
+                }
+                portfolio.trackChanges();
+            }
+        }
+
+        /**
+         * Method saves and unloads the portfolio unless a command used it recently. Run by queued tasks only.
+         */
+        void evictIfIdle() {
+            if (portfolio == null || System.currentTimeMillis() - lastUsed < idleMillis || !queue.isEmpty()) {
+                return;
+            }
+
+            try {
+                save();
+            }
+            catch (Exception e) {
+                // the portfolio stays loaded so its changes aren't lost, the next eviction tries again
+                return;
+            }
+
+            portfolio = null;
+            loaded = false;
+            loadedCount.decrementAndGet();
+            evictionCount.incrementAndGet();
+        }
+    }
+}
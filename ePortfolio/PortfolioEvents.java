@@ -0,0 +1,197 @@
+package ePortfolio;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ *  PortfolioEvents class defines the Java Flight Recorder events emitted by Portfolio operations.
+ *  Events are disabled by default and are enabled by name in the settings of a recording, for example
+ *  "ePortfolio.Search#enabled=true" in a .jfc file or the event browser of JDK Mission Control.
+ *  Disabled events are never created, so a disabled operation only checks a flag of its EventType.
+ */
+final class PortfolioEvents {
+    private static final String CATEGORY = "ePortfolio";
+
+    /**
+     *  FileEvent class holds the fields shared by the load and save events.
+     */
+    abstract static class FileEvent extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Holdings")
+        @Description("Number of investments read or written")
+        int holdings;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("ePortfolio.Load")
+    @Label("Load Investments")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class LoadEvent extends FileEvent {
+
+    }
+
+    @Name("ePortfolio.Save")
+    @Label("Save Investments")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class SaveEvent extends FileEvent {
+
+    }
+
+    @Name("ePortfolio.Search")
+    @Label("Search Investments")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class SearchEvent extends Event {
+        @Label("Symbol")
+        String symbol;
+
+        @Label("Keywords")
+        String keywords;
+
+        @Label("Lower Price")
+        String lowerPrice;
+
+        @Label("Higher Price")
+        String higherPrice;
+
+        @Label("Candidates")
+        @Description("Number of investments checked against the price range")
+        int candidates;
+
+        @Label("Results")
+        @Description("Number of investments passed to the consumer")
+        int results;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("ePortfolio.Trade")
+    @Label("Trade")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class TradeEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Symbol")
+        String symbol;
+
+        @Label("Quantity")
+        String quantity;
+
+        @Label("Price")
+        String price;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    private static final EventType LOAD = EventType.getEventType(LoadEvent.class);
+    private static final EventType SAVE = EventType.getEventType(SaveEvent.class);
+    private static final EventType SEARCH = EventType.getEventType(SearchEvent.class);
+    private static final EventType TRADE = EventType.getEventType(TradeEvent.class);
+
+    private PortfolioEvents() {
+
+    }
+
+    /**
+     * Method starts a load event.
+     * @param file String object containing the name of the file.
+     * @return A started LoadEvent object, null when the event is disabled.
+     */
+    static LoadEvent load(String file) {
+        if (!LOAD.isEnabled()) {
+            return null;
+        }
+
+        LoadEvent event = new LoadEvent();
+        event.file = file;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method starts a save event.
+     * @param file String object containing the name of the file.
+     * @return A started SaveEvent object, null when the event is disabled.
+     */
+    static SaveEvent save(String file) {
+        if (!SAVE.isEnabled()) {
+            return null;
+        }
+
+        SaveEvent event = new SaveEvent();
+        event.file = file;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method starts a search event.
+     * @return A started SearchEvent object, null when the event is disabled.
+     */
+    static SearchEvent search(String symbol, String keywords, String lowerPrice, String higherPrice) {
+        if (!SEARCH.isEnabled()) {
+            return null;
+        }
+
+        SearchEvent event = new SearchEvent();
+        event.symbol = symbol;
+        event.keywords = keywords;
+        event.lowerPrice = lowerPrice;
+        event.higherPrice = higherPrice;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method starts a trade event.
+     * @param operation String object containing "buy" or "sell".
+     * @return A started TradeEvent object, null when the event is disabled.
+     */
+    static TradeEvent trade(String operation, String symbol, String quantity, String price) {
+        if (!TRADE.isEnabled()) {
+            return null;
+        }
+
+        TradeEvent event = new TradeEvent();
+        event.operation = operation;
+        event.symbol = symbol;
+        event.quantity = quantity;
+        event.price = price;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method starts a trade event of a typed trade, the numbers are only formatted when the event is enabled.
+     * @param operation String object containing "buy" or "sell".
+     * @param price A long value containing the price in Money micro-units.
+     * @return A started TradeEvent object, null when the event is disabled.
+     */
+    static TradeEvent trade(String operation, String symbol, long quantity, long price) {
+        if (!TRADE.isEnabled()) {
+            return null;
+        }
+
+        return trade(operation, symbol, Long.toString(quantity), Double.toString(Money.toDouble(price)));
+    }
+}
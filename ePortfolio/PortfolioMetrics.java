@@ -0,0 +1,131 @@
+package ePortfolio;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ *  PortfolioMetrics class counts the calls, failures and latencies of the Portfolio operations of the process.
+ *  Metrics are disabled unless the ePortfolio.metrics system property is true, disabled operations only read a volatile flag. Counters are LongAdders and
+ *  latencies are kept in lock-free logarithmic histograms, so recording doesn't make threads wait on each other.
+ *  The statistics can be polled with snapshot or through JMX once register is called.
+ */
+public final class PortfolioMetrics implements PortfolioMetricsMXBean {
+    /**
+     * Name the metrics are registered under with the platform MBeanServer.
+     */
+    public static final String OBJECT_NAME = "ePortfolio:type=PortfolioMetrics";
+
+    /**
+     * Operations measured.
+     */
+    public enum Operation { BUY, SELL, SEARCH, LOAD, SAVE }
+
+    private static final PortfolioMetrics INSTANCE = new PortfolioMetrics();
+
+    private static volatile boolean enabled = Boolean.getBoolean("ePortfolio.metrics");
+
+    private final EnumMap<Operation, LongAdder> counts = new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final EnumMap<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    private PortfolioMetrics() {
+        for (Operation operation : Operation.values()) {
+            counts.put(operation, new LongAdder());
+            failures.put(operation, new LongAdder());
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Method returns the metrics of the process.
+     * @return The PortfolioMetrics object shared by every Portfolio.
+     */
+    public static PortfolioMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Method registers the metrics with the platform MBeanServer under OBJECT_NAME, if they aren't registered yet.
+     */
+    public void register() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Method starts or stops recording, the statistics recorded are kept.
+     * @param enabled A boolean value that is true to record the operations.
+     */
+    public void setEnabled(boolean enabled) {
+        PortfolioMetrics.enabled = enabled;
+    }
+
+    /**
+     * Method reads the statistics of an operation.
+     * @param operation Operation value of the required statistics.
+     * @return An OperationStats object containing the statistics at the time of the call.
+     */
+    public OperationStats snapshot(Operation operation) {
+        return new OperationStats(operation.name(), counts.get(operation).sum(), failures.get(operation).sum(),
+        latencies.get(operation));
+    }
+
+    public Map<String, OperationStats> getOperations() {
+        LinkedHashMap<String, OperationStats> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            operations.put(operation.name(), snapshot(operation));
+        }
+
+        return operations;
+    }
+
+    /**
+     * Method clears the statistics of every operation.
+     */
+    public void reset() {
+        for (Operation operation : Operation.values()) {
+            counts.get(operation).reset();
+            failures.get(operation).reset();
+            latencies.get(operation).reset();
+        }
+    }
+
+    /**
+     * Method starts measuring an operation.
+     * @return A long value containing the start time in nanoseconds, 0 when metrics are disabled.
+     */
+    static long start() {
+        return enabled ? Math.max(1, System.nanoTime()) : 0;
+    }
+
+    /**
+     * Method records an operation started by start, nothing is recorded if metrics were disabled at its start.
+     * @param operation Operation value of the operation.
+     * @param start A long value returned by start.
+     * @param failed A boolean value that is true if the operation threw an Exception.
+     */
+    static void record(Operation operation, long start, boolean failed) {
+        if (start == 0) {
+            return;
+        }
+
+        INSTANCE.latencies.get(operation).record(System.nanoTime() - start);
+        INSTANCE.counts.get(operation).increment();
+        if (failed) {
+            INSTANCE.failures.get(operation).increment();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ePortfolio;
+
+import java.util.Map;
+
+/**
+ *  PortfolioMetricsMXBean interface exposes the PortfolioMetrics through JMX.
+ */
+public interface PortfolioMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Method reads the statistics of every operation.
+     * @return A Map of operation names to their OperationStats.
+     */
+    Map<String, OperationStats> getOperations();
+
+    void reset();
+}
@@ -0,0 +1,101 @@
+package ePortfolio;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ *  PortfolioSnapshot class represents an immutable version of the investments of a Portfolio.
+ *  Snapshots are published by the Portfolio after every change once snapshots are enabled and
+ *  can be read from any thread without locking. Consecutive snapshots share the investments that
+ *  didn't change, so holding on to one costs nothing and taking one doesn't copy the portfolio.
+ */
+public final class PortfolioSnapshot {
+    private final PersistentHoldingTree.Node root;
+    private final long version;
+    private final long marketValue;
+    private final long bookValue;
+    private final long commissions;
+
+    /**
+     * Constructor declares a new PortfolioSnapshot object of a published version.
+     * @param root The published root Node of the investments.
+     * @param version A long value containing the number of the version.
+     * @param marketValue A long value containing the total market value of the version in Money micro-units.
+     * @param bookValue A long value containing the total book value of the version in Money micro-units.
+     * @param commissions A long value containing the total commissions of the version in Money micro-units.
+     */
+    PortfolioSnapshot(PersistentHoldingTree.Node root, long version, long marketValue, long bookValue,
+    long commissions) {
+        this.root = root;
+        this.version = version;
+        this.marketValue = marketValue;
+        this.bookValue = bookValue;
+        this.commissions = commissions;
+    }
+
+    /**
+     * An accessor method that reads the number of the version, later snapshots have higher numbers.
+     * @return The long version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Method returns the number of investments in the snapshot.
+     * @return An integer value containing the number of investments.
+     */
+    public int size() {
+        return PersistentHoldingTree.size(root);
+    }
+
+    /**
+     * Method checks if the snapshot has no investments.
+     * @return A boolean value that is true if the snapshot is empty.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Method returns the investment at a position of the portfolio order.
+     * @param index An integer value containing the position of the investment.
+     * @return A copy of the Investment object, changing it doesn't change the snapshot.
+     */
+    public Investment get(int index) {
+        Objects.checkIndex(index, size());
+        return PersistentHoldingTree.get(root, index).copy();
+    }
+
+    /**
+     * Method passes the investments of the snapshot to a consumer in portfolio order.
+     * @param consumer A Consumer receiving copies of the Investment objects.
+     */
+    public void forEach(Consumer<Investment> consumer) {
+        PersistentHoldingTree.forEach(root, investment -> consumer.accept(investment.copy()));
+    }
+
+    /**
+     * Method returns the total gain on the investments of the snapshot.
+     * @return A double value containing the total gain.
+     */
+    public double getGain() {
+        return Money.toDouble(marketValue - commissions - bookValue);
+    }
+
+    /**
+     * Method returns the total market value (price times quantity) of the investments of the snapshot.
+     * @return A double value containing the total market value.
+     */
+    public double getMarketValue() {
+        return Money.toDouble(marketValue);
+    }
+
+    /**
+     * Method returns the total book value of the investments of the snapshot.
+     * @return A double value containing the total book value.
+     */
+    public double getBookValue() {
+        return Money.toDouble(bookValue);
+    }
+}
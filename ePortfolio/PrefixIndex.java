@@ -0,0 +1,248 @@
+package ePortfolio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+
+/**
+ *  PrefixIndex class is a trie over lowercase keys (name keywords and symbols) of the investments in a Portfolio.
+ *  Each node stores its children in sorted parallel arrays and a HoldingBitmap of the holding IDs of the keys
+ *  ending at it, so completions of a prefix are found by walking the prefix and visiting the nodes below it,
+ *  and removing a holding costs the same however many holdings share its keys.
+ */
+class PrefixIndex {
+    /**
+     * Root node of the trie, representing the empty prefix.
+     */
+    private Node root = new Node();
+
+    /**
+     * Default constructor that declares a new empty PrefixIndex object.
+     */
+    PrefixIndex() {
+
+    }
+
+    /**
+     * Copy Constructor declares a new PrefixIndex object containing the same keys as other.
+     * @param other A PrefixIndex object containing the keys which will be copied.
+     */
+    PrefixIndex(PrefixIndex other) {
+        this.root = new Node(other.root);
+    }
+
+    /**
+     * Method adds the keys of a holding to the trie, its lowercase symbol and name keywords.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param name String object containing the name of the investment.
+     * @param symbol String object containing the symbol of the investment.
+     */
+    void add(int id, String name, String symbol) {
+        for (String key : keys(name, symbol)) {
+            add(key, id);
+        }
+    }
+
+    /**
+     * Method removes the keys of a holding from the trie.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param name String object containing the name the investment was added with.
+     * @param symbol String object containing the symbol the investment was added with.
+     */
+    void remove(int id, String name, String symbol) {
+        for (String key : keys(name, symbol)) {
+            remove(key, id);
+        }
+    }
+
+    /**
+     * Private method lists the distinct keys of a holding, a keyword repeated in the name or equal
+     * to the symbol is a single key since the nodes keep sets of IDs.
+     */
+    private static HashSet<String> keys(String name, String symbol) {
+        HashSet<String> keys = new HashSet<>();
+
+        if (symbol != null) {
+            keys.add(symbol.toLowerCase());
+        }
+        if (name != null) {
+            for (String token : name.split("[ ]+")) {
+                keys.add(token.toLowerCase());
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Private method adds a key of a holding ID to the trie.
+     * @param key String object containing the lowercase key.
+     * @param id An integer value containing the holding ID of the investment with the key.
+     */
+    private void add(String key, int id) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i), true);
+        }
+
+        node.addId(id);
+    }
+
+    /**
+     * Private method removes a key of a holding ID from the trie, nodes left without keys are pruned.
+     * @param key String object containing the lowercase key.
+     * @param id An integer value containing the holding ID of the investment with the key.
+     */
+    private void remove(String key, int id) {
+        Node [] path = new Node[key.length() + 1];
+        path[0] = root;
+
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i), false);
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+
+        path[key.length()].removeId(id);
+
+        // prune the nodes that no longer lead to any key, starting from the deepest one
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+    }
+
+    /**
+     * Method finds the holding IDs with a key starting with a prefix.
+     * Shorter keys are visited first, so exact matches come before longer completions.
+     * Each ID is returned once even if several of its keys match.
+     * @param prefix String object containing the lowercase prefix.
+     * @param limit An integer value containing the maximum number of IDs returned.
+     * @param filter A HoldingBitmap object containing the only IDs that can be returned, null to allow all IDs.
+     * @return An ArrayList containing the matching holding IDs.
+     */
+    ArrayList<Integer> complete(String prefix, int limit, HoldingBitmap filter) {
+        ArrayList<Integer> ids = new ArrayList<>();
+        Node node = root;
+
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i), false);
+        }
+        if (node == null || limit <= 0) {
+            return ids;
+        }
+
+        // breadth first walk visits the keys in order of their length
+        HoldingBitmap seen = new HoldingBitmap();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(node);
+
+        while (!queue.isEmpty()) {
+            Node current = queue.poll();
+
+            PrimitiveIterator.OfInt currentIds = current.ids == null ? null : current.ids.iterator();
+            while (currentIds != null && currentIds.hasNext()) {
+                int id = currentIds.nextInt();
+                if ((filter == null || filter.contains(id)) && !seen.contains(id)) {
+                    seen.add(id);
+                    ids.add(id);
+                    if (ids.size() == limit) {
+                        return ids;
+                    }
+                }
+            }
+
+            for (int i = 0; i < current.childCount; i++) {
+                queue.add(current.children[i]);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Represents a trie node with children sorted by their character.
+     */
+    private static final class Node {
+        private char [] labels = new char[0];
+        private Node [] children = new Node[0];
+        private int childCount;
+
+        /**
+         * Holding IDs of the keys ending at the node, null while there are none.
+         */
+        private HoldingBitmap ids;
+
+        Node() {
+
+        }
+
+        Node(Node other) {
+            labels = Arrays.copyOf(other.labels, other.childCount);
+            children = new Node[other.childCount];
+            childCount = other.childCount;
+            ids = other.ids == null ? null : new HoldingBitmap(other.ids);
+
+            for (int i = 0; i < childCount; i++) {
+                children[i] = new Node(other.children[i]);
+            }
+        }
+
+        /**
+         * Returns the child for a character, creating it if create is true, otherwise null is returned if it's missing.
+         */
+        Node child(char label, boolean create) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            else if (!create) {
+                return null;
+            }
+
+            index = -index - 1;
+            if (childCount == labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(childCount * 2, 2));
+                children = Arrays.copyOf(children, labels.length);
+            }
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            labels[index] = label;
+            children[index] = new Node();
+            childCount++;
+            return children[index];
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            if (index >= 0) {
+                System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+                System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+                childCount--;
+                children[childCount] = null;
+            }
+        }
+
+        void addId(int id) {
+            if (ids == null) {
+                ids = new HoldingBitmap();
+            }
+            ids.add(id);
+        }
+
+        void removeId(int id) {
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    ids = null;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return ids == null && childCount == 0;
+        }
+    }
+}
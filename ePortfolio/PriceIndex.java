@@ -0,0 +1,261 @@
+package ePortfolio;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ *  PriceIndex class keeps the holding IDs of a Portfolio sorted by the price of their investments.
+ *  Entries are ordered by price then by ID and kept in primitive arrays split into small sorted blocks,
+ *  so a price change only shifts entries inside one block and range queries cost O(log n + k).
+ */
+class PriceIndex {
+    /**
+     * Maximum number of entries in a block, a full block is split into 2 halves.
+     */
+    private static final int BLOCK_CAPACITY = 512;
+
+    /**
+     * Indexed price of every holding ID, NaN for IDs that aren't in the index.
+     */
+    private double [] priceById = new double[0];
+
+    /**
+     * Sorted blocks of entries, only the first block can be empty.
+     */
+    private Block [] blocks = { new Block() };
+
+    /**
+     * Number of blocks in use.
+     */
+    private int blockCount = 1;
+
+    /**
+     * Default constructor that declares a new empty PriceIndex object.
+     */
+    PriceIndex() {
+
+    }
+
+    /**
+     * Copy Constructor declares a new PriceIndex object containing the same entries as other.
+     * @param other A PriceIndex object containing the entries which will be copied.
+     */
+    PriceIndex(PriceIndex other) {
+        this.priceById = other.priceById.clone();
+        this.blocks = new Block[other.blocks.length];
+        this.blockCount = other.blockCount;
+
+        for (int i = 0; i < blockCount; i++) {
+            blocks[i] = new Block(other.blocks[i]);
+        }
+    }
+
+    /**
+     * Method sets the indexed price of a holding ID, moving its entry if the ID was already indexed.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param price A double value containing the current price of the investment.
+     */
+    void set(int id, double price) {
+        if (id < priceById.length && !Double.isNaN(priceById[id])) {
+            // nothing to move when the price didn't change
+            if (priceById[id] == price) {
+                return;
+            }
+            remove(id);
+        }
+        else if (id >= priceById.length) {
+            int length = priceById.length;
+            priceById = Arrays.copyOf(priceById, Math.max(id + 1, length * 2));
+            Arrays.fill(priceById, length, priceById.length, Double.NaN);
+        }
+
+        priceById[id] = price;
+        int blockIndex = findBlock(price, id);
+        Block block = blocks[blockIndex];
+        block.insert(block.position(price, id), price, id);
+
+        // split a full block so shifting entries stays bounded by the block capacity
+        if (block.size == BLOCK_CAPACITY) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex + 2, blockCount - blockIndex - 1);
+            blocks[blockIndex + 1] = block.split();
+            blockCount++;
+        }
+    }
+
+    /**
+     * Method removes a holding ID from the index, nothing happens if the ID isn't indexed.
+     * @param id An integer value containing the holding ID to be removed.
+     */
+    void remove(int id) {
+        if (id >= priceById.length || Double.isNaN(priceById[id])) {
+            return;
+        }
+
+        double price = priceById[id];
+        int blockIndex = findBlock(price, id);
+        Block block = blocks[blockIndex];
+        block.delete(block.position(price, id));
+        priceById[id] = Double.NaN;
+
+        // empty blocks are dropped unless the index has a single block left
+        if (block.size == 0 && blockCount > 1) {
+            System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex, blockCount - blockIndex - 1);
+            blockCount--;
+            blocks[blockCount] = null;
+        }
+    }
+
+    /**
+     * Method returns an iterator over the holding IDs with prices within a range, in ascending price order.
+     * The index must not be modified while the iterator is used.
+     * @param low A double value containing the lowest price in the range.
+     * @param high A double value containing the highest price in the range.
+     * @return A PrimitiveIterator.OfInt object over the IDs within the range.
+     */
+    PrimitiveIterator.OfInt range(double low, double high) {
+        int first = findBlock(low, Integer.MIN_VALUE);
+        int start = blocks[first].position(low, Integer.MIN_VALUE);
+
+        return new PrimitiveIterator.OfInt() {
+            private int blockIndex = first;
+            private int position = start;
+
+            public boolean hasNext() {
+                // skip to the next block once the current one is exhausted
+                while (blockIndex < blockCount && position == blocks[blockIndex].size) {
+                    blockIndex++;
+                    position = 0;
+                }
+
+                return blockIndex < blockCount && blocks[blockIndex].prices[position] <= high;
+            }
+
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return blocks[blockIndex].ids[position++];
+            }
+        };
+    }
+
+    /**
+     * Method collects the holding IDs with prices within a range into a bitmap.
+     * @param low A double value containing the lowest price in the range.
+     * @param high A double value containing the highest price in the range.
+     * @return A HoldingBitmap object containing the IDs within the range.
+     */
+    HoldingBitmap rangeBitmap(double low, double high) {
+        HoldingBitmap ids = new HoldingBitmap();
+        PrimitiveIterator.OfInt iterator = range(low, high);
+
+        while (iterator.hasNext()) {
+            ids.add(iterator.nextInt());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Private method finds the block an entry belongs to with a binary search over the first entry of each block.
+     * @param price A double value containing the price of the entry.
+     * @param id An integer value containing the holding ID of the entry.
+     * @return An integer value containing the index of the last block whose first entry isn't above the entry.
+     */
+    private int findBlock(double price, int id) {
+        int low = 1, high = blockCount - 1, found = 0;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (compare(blocks[middle].prices[0], blocks[middle].ids[0], price, id) <= 0) {
+                found = middle;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Private method compares 2 entries by price then by holding ID.
+     * @return A negative, zero or positive integer value as the first entry is below, equal or above the second.
+     */
+    private static int compare(double price, int id, double otherPrice, int otherId) {
+        int result = Double.compare(price, otherPrice);
+        return result != 0 ? result : Integer.compare(id, otherId);
+    }
+
+    /**
+     * Represents a sorted run of entries stored in parallel price and ID arrays.
+     */
+    private static final class Block {
+        private double [] prices;
+        private int [] ids;
+        private int size;
+
+        Block() {
+            prices = new double[BLOCK_CAPACITY];
+            ids = new int[BLOCK_CAPACITY];
+        }
+
+        Block(Block other) {
+            prices = other.prices.clone();
+            ids = other.ids.clone();
+            size = other.size;
+        }
+
+        /**
+         * Returns the position of the first entry in the block that isn't below the given entry.
+         */
+        int position(double price, int id) {
+            int low = 0, high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(prices[middle], ids[middle], price, id) < 0) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        void insert(int position, double price, int id) {
+            System.arraycopy(prices, position, prices, position + 1, size - position);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            prices[position] = price;
+            ids[position] = id;
+            size++;
+        }
+
+        void delete(int position) {
+            System.arraycopy(prices, position + 1, prices, position, size - position - 1);
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+
+        /**
+         * Moves the upper half of the entries into a new block and returns it.
+         */
+        Block split() {
+            Block upper = new Block();
+            int half = size / 2;
+
+            upper.size = size - half;
+            System.arraycopy(prices, half, upper.prices, 0, upper.size);
+            System.arraycopy(ids, half, upper.ids, 0, upper.size);
+            size = half;
+            return upper;
+        }
+    }
+}
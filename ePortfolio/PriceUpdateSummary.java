@@ -0,0 +1,141 @@
+package ePortfolio;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ *  PriceUpdateSummary class records the outcome of a bulk price update applied to a Portfolio.
+ *  Only counts, the change in total gain and the symbols that aren't owned are kept.
+ */
+public class PriceUpdateSummary {
+    /**
+     * Number of prices read, including invalid prices and prices of unknown symbols.
+     */
+    long ticks = 0;
+
+    /**
+     * Time taken by the update in nanoseconds.
+     */
+    long elapsedNanos = 0;
+
+    /**
+     * Number of investments whose price changed.
+     */
+    int updated = 0;
+
+    /**
+     * Number of prices equal to the current price of their investment.
+     */
+    int unchanged = 0;
+
+    /**
+     * Number of prices rejected for being negative or not a number.
+     */
+    int invalid = 0;
+
+    /**
+     * Change in the total gain of the portfolio caused by the update.
+     */
+    double gainChange = 0;
+
+    /**
+     * Symbols of prices that don't belong to any investment owned, as first given.
+     */
+    private ArrayList<String> unknownSymbols = new ArrayList<>();
+
+    /**
+     * Symbol keys of the unknown symbols, a symbol is only reported once whatever its case.
+     */
+    private HashSet<String> unknownKeys = new HashSet<>();
+
+    /**
+     * Constructor declares a new empty PriceUpdateSummary object, summaries are only created by Portfolio.
+     */
+    PriceUpdateSummary() {
+
+    }
+
+    /**
+     * An accessor method that reads the number of prices read.
+     * @return The long number of prices read.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * An accessor method that reads the time taken by the update.
+     * @return The long number of nanoseconds taken.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Method computes the throughput of the update.
+     * @return A double value containing the number of prices read per second.
+     */
+    public double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Method records a symbol that doesn't belong to any investment owned, unless it was already recorded.
+     * @param symbol String object containing the symbol as given, may be null.
+     */
+    void addUnknownSymbol(String symbol) {
+        if (unknownKeys.add(symbol == null ? null : Portfolio.symbolKey(symbol))) {
+            unknownSymbols.add(symbol);
+        }
+    }
+
+    /**
+     * An accessor method that reads the number of investments whose price changed.
+     * @return The integer number of updated investments.
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * An accessor method that reads the number of prices equal to the current price of their investment.
+     * @return The integer number of unchanged investments.
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * An accessor method that reads the number of prices rejected for being negative or not a number.
+     * @return The integer number of invalid prices.
+     */
+    public int getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * An accessor method that reads the change in total gain caused by the update.
+     * @return The double change in total gain.
+     */
+    public double getGainChange() {
+        return gainChange;
+    }
+
+    /**
+     * An accessor method that reads the symbols that don't belong to any investment owned.
+     * @return An ArrayList containing a copy of the distinct unknown symbols, as first given.
+     */
+    public ArrayList<String> getUnknownSymbols() {
+        return new ArrayList<>(unknownSymbols);
+    }
+
+    /**
+     * Method adds the counts of the summary to a String object and returns it.
+     * @return A String object describing the outcome of the update.
+     */
+    public String toString() {
+        return "Read " + ticks + " prices at " + Math.round(getTicksPerSecond()) + " ticks/s. " +
+        "Updated " + updated + ", unchanged " + unchanged + ", invalid " + invalid +
+        ", unknown " + unknownSymbols.size() + ". Gain change: " + gainChange + "$\n";
+    }
+}
@@ -0,0 +1,267 @@
+package ePortfolio;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ *  SnapshotFile class writes and reads the binary snapshot format of a Portfolio.
+ *  A snapshot starts with a header holding a magic number, the format version, the counts and
+ *  the sequence number of the last journal record it contains,
+ *  followed by a string table of the distinct symbols and names and fixed width columns
+ *  of types, string table indices, quantities, prices and book values in portfolio order.
+ *  Since version 3 prices and book values are stored as Money micro-units instead of doubles.
+ *  Snapshots are written to a temporary file which is forced to disk and replaces the target once complete,
+ *  the directory is forced afterwards so the rename survives a power loss.
+ */
+class SnapshotFile {
+    /**
+     * Magic number identifying snapshot files, the ASCII bytes "EPFS".
+     */
+    static final int MAGIC = 0x45504653;
+
+    /**
+     * Version of the format written by this class.
+     */
+    static final short VERSION = 3;
+
+    /**
+     * Type column values.
+     */
+    private static final byte STOCK = 1;
+    private static final byte MUTUAL_FUND = 2;
+
+    /**
+     * String table index of missing symbols and names.
+     */
+    private static final int NO_STRING = -1;
+
+    /**
+     * Size of the header in bytes: magic, version, flags, holding count, string count and, since version 2,
+     * the journal sequence number.
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * Size of the version 1 header in bytes, which has no journal sequence number.
+     */
+    private static final int VERSION_1_HEADER_SIZE = 16;
+
+    private SnapshotFile() {
+
+    }
+
+    /**
+     * Method writes the holdings of a portfolio to a snapshot file.
+     * @param fileName String object containing the name of the snapshot file.
+     * @param holdings A HoldingStore object containing the investments.
+     * @param order An array of integers containing the holding IDs in portfolio order.
+     * @param count An integer value containing the number of holding IDs in order.
+     * @param journalSequence A long value containing the sequence number of the last journal record applied.
+     */
+    static void write(String fileName, HoldingStore holdings, int [] order, int count, long journalSequence)
+    throws IOException {
+        Path target = Paths.get(fileName);
+        Path temporary = Paths.get(fileName + ".tmp");
+
+        // build the string table and the string columns
+        HashMap<String, Integer> stringIndex = new HashMap<>();
+        ArrayList<byte []> strings = new ArrayList<>();
+        int [] symbols = new int[count];
+        int [] names = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            symbols[i] = intern(holdings.getSymbol(order[i]), stringIndex, strings);
+            names[i] = intern(holdings.getName(order[i]), stringIndex, strings);
+        }
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeShort(0);
+            output.writeInt(count);
+            output.writeInt(strings.size());
+            output.writeLong(journalSequence);
+
+            for (byte [] string : strings) {
+                output.writeInt(string.length);
+                output.write(string);
+            }
+
+            for (int i = 0; i < count; i++) {
+                output.writeByte(holdings.isStock(order[i]) ? STOCK : MUTUAL_FUND);
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeInt(symbols[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeInt(names[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeInt(holdings.getQuantity(order[i]));
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeLong(holdings.getPriceMicros(order[i]));
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeLong(holdings.getBookValueMicros(order[i]));
+            }
+
+            // the contents must be on disk before the rename, otherwise a power loss can leave an empty target
+            output.flush();
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Method forces the entries of a directory to disk so a rename within it is durable, shared with AutosaveService.
+     * Platforms which can't open directories, like Windows, are skipped.
+     * @param directory A Path object containing the directory, nothing is forced if it is null.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException | UnsupportedOperationException e) {
+            if (!System.getProperty("os.name", "").startsWith("Windows")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Method reads the investments of a snapshot file in portfolio order.
+     * @param fileName String object containing the name of the snapshot file.
+     * @param consumer A Consumer receiving every investment read.
+     * @return A long value containing the sequence number of the last journal record applied, 0 for version 1.
+     */
+    static long read(String fileName, Consumer<Investment> consumer) throws Exception {
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("ERROR: Snapshot " + fileName + " is too large.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < VERSION_1_HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("ERROR: " + fileName + " is not a portfolio snapshot.");
+        }
+
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("ERROR: Unsupported snapshot version " + version + ".");
+        }
+        else if (buffer.limit() < (version >= 2 ? HEADER_SIZE : VERSION_1_HEADER_SIZE)) {
+            throw new IOException("ERROR: " + fileName + " is not a portfolio snapshot.");
+        }
+        buffer.getShort();
+
+        int count = buffer.getInt();
+        String [] strings = new String[buffer.getInt()];
+        long journalSequence = version >= 2 ? buffer.getLong() : 0;
+
+        for (int i = 0; i < strings.length; i++) {
+            byte [] string = new byte[buffer.getInt()];
+            buffer.get(string);
+            strings[i] = new String(string, StandardCharsets.UTF_8);
+        }
+
+        byte [] types = new byte[count];
+        int [] symbols = new int[count];
+        int [] names = new int[count];
+        int [] quantities = new int[count];
+        long [] prices = new long[count];
+        long [] bookValues = new long[count];
+
+        // columns are copied in bulk
+        buffer.get(types);
+        buffer.asIntBuffer().get(symbols);
+        buffer.position(buffer.position() + 4 * count);
+        buffer.asIntBuffer().get(names);
+        buffer.position(buffer.position() + 4 * count);
+        buffer.asIntBuffer().get(quantities);
+        buffer.position(buffer.position() + 4 * count);
+        readMoney(buffer, prices, version);
+        readMoney(buffer, bookValues, version);
+
+        for (int i = 0; i < count; i++) {
+            Investment investment = types[i] == STOCK ? new Stock() : new MutualFund();
+
+            investment.setSymbol(symbols[i] == NO_STRING ? null : strings[symbols[i]]);
+            investment.setName(names[i] == NO_STRING ? null : strings[names[i]]);
+            investment.setQuantity(quantities[i]);
+            investment.updatePriceMicros(prices[i]);
+            investment.bookValue = bookValues[i];
+            consumer.accept(investment);
+        }
+
+        return journalSequence;
+    }
+
+    /**
+     * Private method reads a column of amounts as Money micro-units, converting the doubles of versions before 3.
+     * @param buffer A ByteBuffer positioned at the column, it's positioned after the column once read.
+     * @param column An array of longs receiving the amounts.
+     * @param version A short value containing the version of the snapshot.
+     */
+    private static void readMoney(ByteBuffer buffer, long [] column, short version) {
+        if (version >= 3) {
+            buffer.asLongBuffer().get(column);
+        }
+        else {
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            for (int i = 0; i < column.length; i++) {
+                column[i] = Money.toMicros(doubles.get());
+            }
+        }
+
+        buffer.position(buffer.position() + 8 * column.length);
+    }
+
+    /**
+     * Private method finds the string table index of a String, adding it to the table if it's new.
+     * @param string String object to be found, may be null.
+     * @param stringIndex A HashMap of the Strings in the table to their indices.
+     * @param strings An ArrayList containing the UTF-8 bytes of the Strings in the table.
+     * @return An integer value containing the string table index, or NO_STRING for null.
+     */
+    private static int intern(String string, HashMap<String, Integer> stringIndex, ArrayList<byte []> strings) {
+        if (string == null) {
+            return NO_STRING;
+        }
+
+        Integer index = stringIndex.get(string);
+        if (index == null) {
+            index = strings.size();
+            stringIndex.put(string, index);
+            strings.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return index;
+    }
+}
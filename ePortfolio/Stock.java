@@ -5,6 +5,16 @@ package ePortfolio;
  * Gain on stock investment can be calculated independantly from other investment types.
  */
 public class Stock extends Investment {
+    /**
+     * Commission paid on every purchase and deducted from the payment of a sale.
+     */
+    public static final double COMMISSION = 9.99;
+
+    /**
+     * COMMISSION in Money micro-units.
+     */
+    public static final long COMMISSION_MICROS = 9_990_000L;
+
     /**
      * This constructor declares a new Stock object and initializes its symbol and name.
      * The Stock's symbol is initialized with the symbol argument.
@@ -51,10 +61,19 @@ public class Stock extends Investment {
      * @return A double value containing the updated gain of the Stock.
      */
     public double getGain() {
-        double payment = getPrice() * getQuantity() - 9.99;
-        double gain = payment - getBookValue();
+        return Money.toDouble(getGainMicros());
+    }
+
+    /**
+     * This method computes the gain on investment of the calling Stock object with exact fixed-point arithmetic.
+     * It assigns the value to gain attribute and returns it.
+     * @return A long value containing the updated gain of the Stock in Money micro-units.
+     */
+    public long getGainMicros() {
+        long payment = Money.multiply(price, quantity) - COMMISSION_MICROS;
+        long gain = payment - bookValue;
 
-        setGain(gain); 
+        this.gain = gain;
         return gain;
     }
 
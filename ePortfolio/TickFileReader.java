@@ -0,0 +1,288 @@
+package ePortfolio;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ *  TickFileReader class reads price files of "symbol,price" lines through MappedText.
+ *  Symbols are looked up with their bytes in a table built from the symbol index of a Portfolio and
+ *  prices are parsed straight from the mapped bytes, so no String is created for a line unless its
+ *  symbol is unknown or its price can't be parsed exactly by the fast path.
+ *  Only the last valid price of every holding is kept so the Portfolio can apply them in bulk.
+ *  Symbols containing non-ASCII bytes are decoded and looked up by Portfolio.symbolKey, so both ways
+ *  agree with the symbol index on every symbol.
+ */
+class TickFileReader {
+    /**
+     * Holding ID of symbols in the table that aren't owned.
+     */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * Symbol index of the Portfolio, used for symbols the byte table can't lowercase.
+     */
+    private Map<String, Integer> symbolIndex;
+
+    /**
+     * Open addressing table of lowercase ASCII symbol bytes and their holding IDs.
+     */
+    private byte [][] keys;
+    private int [] ids;
+    private int size = 0;
+
+    /**
+     * Last valid price read for every holding ID, NaN when the holding had no tick.
+     */
+    private double [] latestPrices;
+
+    /**
+     * Summary receiving the tick, invalid and unknown symbol counts.
+     */
+    private PriceUpdateSummary summary;
+
+    /**
+     * Constructor declares a new TickFileReader object resolving symbols with a symbol index.
+     * @param symbolIndex A Map of symbol keys to their holding IDs.
+     * @param idCapacity An integer value greater than every holding ID in symbolIndex.
+     * @param summary A PriceUpdateSummary object receiving the counts of the read ticks.
+     */
+    TickFileReader(Map<String, Integer> symbolIndex, int idCapacity, PriceUpdateSummary summary) {
+        int capacity = Integer.highestOneBit(Math.max(symbolIndex.size(), 8) * 4 - 1);
+
+        this.symbolIndex = symbolIndex;
+        this.keys = new byte[capacity][];
+        this.ids = new int[capacity];
+        this.latestPrices = new double[idCapacity];
+        this.summary = summary;
+        Arrays.fill(latestPrices, Double.NaN);
+
+        for (Map.Entry<String, Integer> entry : symbolIndex.entrySet()) {
+            byte [] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            if (isAscii(key)) {
+                insert(key, hash(key, 0, key.length), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Method reads every tick of a price file.
+     * @param fileName String object containing the name of the price file.
+     */
+    void read(String fileName) throws Exception {
+        MappedText.readLines(fileName, this::readLine);
+    }
+
+    /**
+     * Method returns the last valid price read for every holding ID.
+     * @return An array of double values indexed by holding ID, NaN for holdings without ticks.
+     */
+    double [] getLatestPrices() {
+        return latestPrices;
+    }
+
+    /**
+     * Private method reads a single "symbol,price" line, blank lines are skipped.
+     * @param buffer A ByteBuffer object containing the line.
+     * @param start An integer value containing the index of the first byte of the line.
+     * @param end An integer value containing the index after the last byte of the line.
+     */
+    private void readLine(ByteBuffer buffer, int start, int end) {
+        start = MappedText.skipSpaces(buffer, start, end);
+        end = MappedText.trimSpaces(buffer, start, end);
+        if (start == end) {
+            return;
+        }
+
+        summary.ticks++;
+
+        int comma = start;
+        while (comma < end && buffer.get(comma) != ',') {
+            comma++;
+        }
+
+        int symbolEnd = MappedText.trimSpaces(buffer, start, comma);
+        if (comma == end || symbolEnd == start) {
+            summary.invalid++;
+            return;
+        }
+
+        int id = lookup(buffer, start, symbolEnd);
+        if (id == UNKNOWN) {
+            return;
+        }
+
+        double price = parsePrice(buffer, MappedText.skipSpaces(buffer, comma + 1, end), end);
+        if (!(price >= 0) || !Money.fits(price)) {
+            summary.invalid++;
+            return;
+        }
+
+        latestPrices[id] = price;
+    }
+
+    /**
+     * Private method finds the holding ID of a symbol in the table.
+     * Symbols that aren't owned are added to the table and reported to the summary the first time they're read.
+     * Symbols with non-ASCII bytes are decoded and looked up in the symbol index instead.
+     * @param buffer A ByteBuffer object containing the symbol.
+     * @param start An integer value containing the index of the first byte of the symbol.
+     * @param end An integer value containing the index after the last byte of the symbol.
+     * @return An integer value containing the holding ID, or UNKNOWN if the symbol isn't owned.
+     */
+    private int lookup(ByteBuffer buffer, int start, int end) {
+        byte [] bytes = null;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) < 0) {
+                bytes = copy(buffer, start, end);
+                break;
+            }
+        }
+        if (bytes != null) {
+            String symbol = new String(bytes, StandardCharsets.UTF_8);
+            Integer id = symbolIndex.get(Portfolio.symbolKey(symbol));
+            if (id == null) {
+                summary.addUnknownSymbol(symbol);
+                return UNKNOWN;
+            }
+            return id;
+        }
+
+        int hash = hash(buffer, start, end);
+        int mask = keys.length - 1;
+
+        for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(keys[slot], buffer, start, end)) {
+                return ids[slot];
+            }
+        }
+
+        byte [] symbol = copy(buffer, start, end);
+        byte [] key = new byte[symbol.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = lowerCase(symbol[i]);
+        }
+
+        insert(key, hash, UNKNOWN);
+        summary.addUnknownSymbol(new String(symbol, StandardCharsets.UTF_8));
+        return UNKNOWN;
+    }
+
+    private static byte [] copy(ByteBuffer buffer, int start, int end) {
+        byte [] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        return bytes;
+    }
+
+    private static boolean isAscii(byte [] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Private method adds a symbol to the table, the table is doubled when it's half full.
+     * @param key An array of bytes containing the lowercase symbol.
+     * @param hash An integer value containing the hash of the symbol.
+     * @param id An integer value containing the holding ID of the symbol.
+     */
+    private void insert(byte [] key, int hash, int id) {
+        if (2 * (size + 1) > keys.length) {
+            byte [][] oldKeys = keys;
+            int [] oldIds = ids;
+
+            keys = new byte[oldKeys.length * 2][];
+            ids = new int[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != null) {
+                    insert(oldKeys[slot], hash(oldKeys[slot], 0, oldKeys[slot].length), oldIds[slot]);
+                }
+            }
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        ids[slot] = id;
+        size++;
+    }
+
+    /**
+     * Private method parses a price from the mapped bytes.
+     * @param buffer A ByteBuffer object containing the price.
+     * @param start An integer value containing the index of the first byte of the price.
+     * @param end An integer value containing the index after the last byte of the price.
+     * @return A double value containing the price, or NaN if the bytes aren't a number.
+     */
+    private static double parsePrice(ByteBuffer buffer, int start, int end) {
+        try {
+            return MappedText.parseDouble(buffer, start, end);
+        }
+        catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Private method checks if a lowercase key is equal to the symbol bytes ignoring cases.
+     */
+    private static boolean matches(byte [] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != lowerCase(buffer.get(start + i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Private method computes the FNV-1a hash of the lowercase symbol bytes.
+     */
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 0x811c9dc5;
+
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ lowerCase(buffer.get(i))) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Private method computes the FNV-1a hash of a lowercase key, equal to the hash of the same symbol bytes.
+     */
+    private static int hash(byte [] key, int start, int end) {
+        int hash = 0x811c9dc5;
+
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ key[i]) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Private method converts an ASCII letter byte to lowercase, other bytes are returned as they are.
+     */
+    private static byte lowerCase(byte c) {
+        return c >= 'A' && c <= 'Z' ? (byte)(c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,44 @@
+package ePortfolio;
+
+/**
+ *  TradeStatus enum represents the outcome of a trade made through the typed Portfolio trade methods.
+ *  The typed methods report invalid orders with a status instead of throwing an Exception, so replaying
+ *  large numbers of orders doesn't pay for parsing or building stack traces.
+ */
+public enum TradeStatus {
+    OK("Trade completed."),
+    INVALID_SYMBOL("Symbol and name can't be empty."),
+    INVALID_QUANTITY("Quantity needs to be a number higher than 0. Try again."),
+    INVALID_PRICE("Price needs to be a number higher than 0. Try again."),
+    UNKNOWN_SYMBOL("ERROR: Invalid investment symbol, investment doesn't exist in portfolio."),
+    TYPE_MISMATCH("ERROR: Symbol entered belongs to another investment type."),
+    INSUFFICIENT_QUANTITY("ERROR: Can't sell a higher quantity than owned. Try again."),
+    OVERFLOW("ERROR: The book value or market value of the portfolio would be too large."),
+
+    /**
+     * The trade was made but couldn't be appended to the journal, so it isn't durable.
+     */
+    JOURNAL_FAILED("ERROR: The trade was made but couldn't be written to the journal.");
+
+    private final String message;
+
+    TradeStatus(String message) {
+        this.message = message;
+    }
+
+    /**
+     * An accessor method that reads the message describing the status.
+     * @return The message String, worded like the Exceptions of the String based trade methods.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Method checks if the trade was made.
+     * @return A boolean value that is true for OK and JOURNAL_FAILED.
+     */
+    public boolean isTraded() {
+        return this == OK || this == JOURNAL_FAILED;
+    }
+}
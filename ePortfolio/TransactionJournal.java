@@ -0,0 +1,599 @@
+package ePortfolio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ *  TransactionJournal class is an append only write-ahead journal of the buys, sells and price updates of a Portfolio.
+ *  Records are appended to an in memory batch and written by a daemon flusher thread,
+ *  so commits waiting for the disk share a single fsync (group commit).
+ *  The journal file starts with a header holding the sequence number the file continues from,
+ *  every record is framed by its length and a CRC32 so a torn tail left by a crash is detected and cut off.
+ *  Portfolio.recover loads the last snapshot and replays the records appended after it,
+ *  Portfolio.checkpoint writes a new snapshot and empties the journal.
+ */
+public class TransactionJournal implements Closeable {
+    /**
+     * Policies deciding when commits return and when the journal is forced to disk.
+     */
+    public enum SyncPolicy {
+        /**
+         * Commits wait for an fsync, commits made during an fsync share the next one.
+         */
+        SYNC,
+
+        /**
+         * Commits wait for an fsync, the flusher waits up to the interval to gather larger groups.
+         */
+        GROUP,
+
+        /**
+         * Commits return at once, records are forced to disk within the interval.
+         */
+        ASYNC,
+
+        /**
+         * Commits return at once, records are written within the interval and left to the operating system.
+         */
+        NONE
+    }
+
+    /**
+     * Record kinds.
+     */
+    static final byte BUY = 1;
+    static final byte SELL = 2;
+    static final byte PRICE = 3;
+
+    /**
+     * Magic number identifying journal files, the ASCII bytes "EPFJ".
+     */
+    private static final int MAGIC = 0x4550464a;
+
+    private static final short VERSION = 1;
+
+    /**
+     * Size of the header in bytes: magic, version, flags and the base sequence number.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Size of the length and checksum framing every record.
+     */
+    private static final int FRAME_SIZE = 8;
+
+    /**
+     * Number of batched bytes that are written without waiting for the interval.
+     */
+    private static final int MAX_BATCH = 1 << 20;
+
+    /**
+     *  Record class holds a decoded journal record, fields the kind doesn't use are left empty.
+     */
+    static class Record {
+        long sequence;
+        byte kind;
+        boolean stock;
+        String symbol;
+        String name;
+        int quantity;
+        double price;
+    }
+
+    /**
+     *  RecordHandler interface applies replayed records.
+     */
+    interface RecordHandler {
+        void apply(Record record) throws Exception;
+    }
+
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final long intervalNanos;
+    private final Thread flusher;
+
+    /**
+     * Lock guarding the batch and sequence numbers, the flusher waits on it for work and commits wait on it for the flusher.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Lock held while the file is written, forced or truncated.
+     */
+    private final Object fileLock = new Object();
+
+    private byte [] batch = new byte[4096];
+    private byte [] spare = new byte[4096];
+    private int batchSize = 0;
+    private long batchStarted = 0;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+
+    private long lastSequence;
+    private long durableSequence;
+    private boolean closed = false;
+    private IOException failure = null;
+
+    /**
+     * Constructor opens or creates a journal file and starts its flusher thread.
+     * Records after the last complete record are cut off.
+     * @param fileName String object containing the name of the journal file.
+     * @param policy A SyncPolicy value deciding when commits return.
+     * @param intervalMillis A long value containing the interval of the GROUP, ASYNC and NONE policies in milliseconds.
+     */
+    public TransactionJournal(String fileName, SyncPolicy policy, long intervalMillis) throws IOException {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("ERROR: Interval can't be negative.");
+        }
+
+        this.policy = policy;
+        this.intervalNanos = policy == SyncPolicy.SYNC ? 0 : intervalMillis * 1_000_000L;
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(0);
+            }
+            else {
+                scan();
+            }
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        durableSequence = lastSequence;
+        flusher = new Thread(this::flushLoop, "portfolio-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * An accessor method that reads the sequence number of the last record appended.
+     * @return The long sequence number, records are numbered from 1.
+     */
+    public long getLastSequence() {
+        synchronized (lock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * An accessor method that reads the policy deciding when commits return.
+     * @return The SyncPolicy value of the journal.
+     */
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Method appends a buy record to the batch.
+     * @return A long value containing the sequence number of the record.
+     */
+    long appendBuy(boolean stock, String symbol, String name, int quantity, double price) throws IOException {
+        synchronized (lock) {
+            startRecord(BUY);
+            record.put(stock ? (byte)1 : (byte)0);
+            putString(symbol);
+            putString(name);
+            record.putInt(quantity);
+            record.putDouble(price);
+            return endRecord();
+        }
+    }
+
+    /**
+     * Method appends a sell record to the batch.
+     * @return A long value containing the sequence number of the record.
+     */
+    long appendSell(String symbol, int quantity, double price) throws IOException {
+        synchronized (lock) {
+            startRecord(SELL);
+            putString(symbol);
+            record.putInt(quantity);
+            record.putDouble(price);
+            return endRecord();
+        }
+    }
+
+    /**
+     * Method appends a price update record to the batch.
+     * @return A long value containing the sequence number of the record.
+     */
+    long appendPrice(String symbol, double price) throws IOException {
+        synchronized (lock) {
+            startRecord(PRICE);
+            putString(symbol);
+            record.putDouble(price);
+            return endRecord();
+        }
+    }
+
+    /**
+     * Method commits the records appended so far.
+     * Under the SYNC and GROUP policies it returns once they're forced to disk, otherwise it returns at once.
+     */
+    void commit() throws IOException {
+        if (policy == SyncPolicy.SYNC || policy == SyncPolicy.GROUP) {
+            awaitDurable();
+        }
+        else {
+            synchronized (lock) {
+                checkFailure();
+            }
+        }
+    }
+
+    /**
+     * Method makes sure the journal continues after a sequence number, used when a snapshot is newer than the journal.
+     * @param sequence A long value containing the sequence number of the last change in the snapshot.
+     */
+    void resumeAfter(long sequence) throws IOException {
+        synchronized (lock) {
+            if (sequence > lastSequence && batchSize == 0) {
+                synchronized (fileLock) {
+                    channel.truncate(HEADER_SIZE);
+                    writeHeader(sequence);
+                }
+                lastSequence = sequence;
+                durableSequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * Method passes the records appended after a sequence number to a handler in order.
+     * @param afterSequence A long value containing the sequence number of the last change already applied.
+     * @param handler A RecordHandler applying the records.
+     */
+    void replay(long afterSequence, RecordHandler handler) throws Exception {
+        awaitDurable();
+
+        ByteBuffer contents;
+        synchronized (fileLock) {
+            contents = ByteBuffer.allocate((int)channel.size());
+            channel.read(contents, 0);
+        }
+        contents.flip();
+        contents.position(HEADER_SIZE);
+
+        Record decoded;
+        while ((decoded = next(contents)) != null) {
+            if (decoded.sequence > afterSequence) {
+                handler.apply(decoded);
+            }
+        }
+    }
+
+    /**
+     * Method empties the journal once its records are part of a snapshot, sequence numbers continue where they were.
+     */
+    void truncate() throws IOException {
+        awaitDurable();
+
+        synchronized (lock) {
+            synchronized (fileLock) {
+                channel.truncate(HEADER_SIZE);
+                writeHeader(durableSequence);
+            }
+        }
+    }
+
+    /**
+     * Method writes the remaining records, stops the flusher thread and closes the file.
+     */
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            flusher.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (fileLock) {
+            channel.close();
+        }
+
+        synchronized (lock) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Private method waits until every appended record is forced to disk.
+     */
+    private void awaitDurable() throws IOException {
+        synchronized (lock) {
+            long sequence = lastSequence;
+            lock.notifyAll();
+
+            while (durableSequence < sequence) {
+                checkFailure();
+                if (closed && !flusher.isAlive()) {
+                    throw new IOException("ERROR: Journal is closed.");
+                }
+
+                try {
+                    lock.wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("ERROR: Interrupted while waiting for the journal.");
+                }
+            }
+            checkFailure();
+        }
+    }
+
+    /**
+     * Private method run by the flusher thread, writing batches until the journal is closed.
+     */
+    private void flushLoop() {
+        try {
+            while (true) {
+                byte [] written;
+                int size;
+                long sequence;
+
+                synchronized (lock) {
+                    while (!closed && !flushDue()) {
+                        long wait = batchSize == 0 ? 0 : batchStarted + intervalNanos - System.nanoTime();
+                        if (batchSize == 0) {
+                            lock.wait();
+                        }
+                        else {
+                            lock.wait(Math.max(1, wait / 1_000_000L));
+                        }
+                    }
+                    if (closed && batchSize == 0) {
+                        return;
+                    }
+
+                    written = batch;
+                    size = batchSize;
+                    sequence = lastSequence;
+                    batch = spare;
+                    batchSize = 0;
+                }
+
+                synchronized (fileLock) {
+                    ByteBuffer buffer = ByteBuffer.wrap(written, 0, size);
+                    long position = channel.size();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    if (policy != SyncPolicy.NONE) {
+                        channel.force(false);
+                    }
+                }
+
+                synchronized (lock) {
+                    spare = written;
+                    durableSequence = sequence;
+                    lock.notifyAll();
+                }
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+        catch (InterruptedException e) {
+            fail(new IOException("ERROR: Journal flusher interrupted."));
+        }
+    }
+
+    /**
+     * Private method checks if the batch should be written, called with the lock held.
+     */
+    private boolean flushDue() {
+        return batchSize > 0 && (batchSize >= MAX_BATCH || System.nanoTime() - batchStarted >= intervalNanos);
+    }
+
+    private void fail(IOException e) {
+        synchronized (lock) {
+            failure = e;
+            lock.notifyAll();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("ERROR: Journal write failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Private method starts encoding a record with the next sequence number, called with the lock held.
+     */
+    private void startRecord(byte kind) throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("ERROR: Journal is closed.");
+        }
+
+        record.clear();
+        record.putLong(lastSequence + 1);
+        record.put(kind);
+    }
+
+    /**
+     * Private method frames the encoded record and appends it to the batch, called with the lock held.
+     * @return A long value containing the sequence number of the record.
+     */
+    private long endRecord() {
+        int length = record.position();
+
+        crc.reset();
+        crc.update(record.array(), 0, length);
+
+        if (batchSize + FRAME_SIZE + length > batch.length) {
+            batch = Arrays.copyOf(batch, Math.max(batch.length * 2, batchSize + FRAME_SIZE + length));
+        }
+
+        ByteBuffer frame = ByteBuffer.wrap(batch, batchSize, FRAME_SIZE + length);
+        frame.putInt(length);
+        frame.putInt((int)crc.getValue());
+        frame.put(record.array(), 0, length);
+
+        boolean first = batchSize == 0;
+        if (first) {
+            batchStarted = System.nanoTime();
+        }
+        batchSize += FRAME_SIZE + length;
+
+        // the flusher starts timing the interval with the first record of a batch
+        if (first || intervalNanos == 0 || batchSize >= MAX_BATCH) {
+            lock.notifyAll();
+        }
+        return ++lastSequence;
+    }
+
+    /**
+     * Private method encodes a String as its UTF-8 length and bytes, null is encoded with length -1.
+     */
+    private void putString(String string) {
+        byte [] bytes = string == null ? new byte[0] : string.getBytes(StandardCharsets.UTF_8);
+
+        if (record.remaining() < bytes.length + 64) {
+            ByteBuffer larger = ByteBuffer.allocate(record.capacity() * 2 + bytes.length);
+            record.flip();
+            larger.put(record);
+            record = larger;
+        }
+
+        record.putInt(string == null ? -1 : bytes.length);
+        record.put(bytes);
+    }
+
+    /**
+     * Private method reads the header and the records of an existing file.
+     * The last sequence number is found and the file is cut after its last complete record.
+     */
+    private void scan() throws IOException {
+        ByteBuffer contents = ByteBuffer.allocate((int)Math.min(channel.size(), Integer.MAX_VALUE));
+        channel.read(contents, 0);
+        contents.flip();
+
+        if (contents.getInt() != MAGIC) {
+            throw new IOException("ERROR: File is not a portfolio journal.");
+        }
+        short version = contents.getShort();
+        if (version != VERSION) {
+            throw new IOException("ERROR: Unsupported journal version " + version + ".");
+        }
+        contents.getShort();
+        lastSequence = contents.getLong();
+
+        Record decoded;
+        while ((decoded = next(contents)) != null) {
+            lastSequence = decoded.sequence;
+        }
+
+        if (contents.position() < channel.size()) {
+            channel.truncate(contents.position());
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Private method decodes the next record of the file contents.
+     * @param contents A ByteBuffer object positioned at the start of a record.
+     * @return A Record object, or null at the end of the records or a torn or corrupt record.
+     * The position is left at the end of the last complete record.
+     */
+    private Record next(ByteBuffer contents) {
+        int start = contents.position();
+        if (contents.remaining() < FRAME_SIZE) {
+            return null;
+        }
+
+        int length = contents.getInt();
+        int checksum = contents.getInt();
+        if (length < 9 || length > contents.remaining()) {
+            contents.position(start);
+            return null;
+        }
+
+        CRC32 check = new CRC32();
+        check.update(contents.array(), contents.position(), length);
+        if ((int)check.getValue() != checksum) {
+            contents.position(start);
+            return null;
+        }
+
+        Record decoded = new Record();
+        decoded.sequence = contents.getLong();
+        decoded.kind = contents.get();
+
+        switch (decoded.kind) {
+            case BUY:
+                decoded.stock = contents.get() != 0;
+                decoded.symbol = getString(contents);
+                decoded.name = getString(contents);
+                decoded.quantity = contents.getInt();
+                decoded.price = contents.getDouble();
+                break;
+            case SELL:
+                decoded.symbol = getString(contents);
+                decoded.quantity = contents.getInt();
+                decoded.price = contents.getDouble();
+                break;
+            case PRICE:
+                decoded.symbol = getString(contents);
+                decoded.price = contents.getDouble();
+                break;
+            default:
+                contents.position(start);
+                return null;
+        }
+
+        return decoded;
+    }
+
+    private static String getString(ByteBuffer contents) {
+        int length = contents.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        String string = new String(contents.array(), contents.position(), length, StandardCharsets.UTF_8);
+        contents.position(contents.position() + length);
+        return string;
+    }
+
+    /**
+     * Private method writes the header and forces it to disk.
+     * @param baseSequence A long value containing the sequence number the file continues from.
+     */
+    private void writeHeader(long baseSequence) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.putShort((short)0);
+        header.putLong(baseSequence);
+        header.flip();
+
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        lastSequence = Math.max(lastSequence, baseSequence);
+    }
+}
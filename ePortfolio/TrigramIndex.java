@@ -0,0 +1,180 @@
+package ePortfolio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ *  TrigramIndex class maps the trigrams of investment names and symbols to the holding IDs containing them.
+ *  Every word is padded with 2 leading and 1 trailing boundary marker before it's split into trigrams,
+ *  so misspelled words still share most of their trigrams with the correct word.
+ *  Holdings are ranked by the share of the query trigrams they contain.
+ */
+class TrigramIndex {
+    /**
+     * Character used to mark the boundaries of a word.
+     */
+    private static final char BOUNDARY = '$';
+
+    /**
+     * HashMap of packed trigrams to bitmaps of the holding IDs containing them.
+     */
+    private HashMap<Long, HoldingBitmap> postings = new HashMap<>();
+
+    /**
+     * Number of distinct trigrams of every holding ID.
+     */
+    private int [] trigramCounts = new int[0];
+
+    /**
+     * Number of query trigrams shared by every holding ID, reused by every search and cleared for
+     * the candidates afterwards so a search costs the size of its postings instead of the highest holding ID.
+     */
+    private int [] shared = new int[0];
+
+    /**
+     * Default constructor that declares a new empty TrigramIndex object.
+     */
+    TrigramIndex() {
+
+    }
+
+    /**
+     * Copy Constructor declares a new TrigramIndex object containing the same holdings as other.
+     * @param other A TrigramIndex object containing the holdings which will be copied.
+     */
+    TrigramIndex(TrigramIndex other) {
+        this.trigramCounts = other.trigramCounts.clone();
+        for (Map.Entry<Long, HoldingBitmap> entry : other.postings.entrySet()) {
+            this.postings.put(entry.getKey(), new HoldingBitmap(entry.getValue()));
+        }
+    }
+
+    /**
+     * Method adds the trigrams of a holding's name and symbol to the index.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param name String object containing the name of the investment.
+     * @param symbol String object containing the symbol of the investment.
+     */
+    void add(int id, String name, String symbol) {
+        HashSet<Long> trigrams = trigrams(text(name, symbol));
+
+        if (id >= trigramCounts.length) {
+            trigramCounts = Arrays.copyOf(trigramCounts, Math.max(id + 1, trigramCounts.length * 2));
+        }
+        trigramCounts[id] = trigrams.size();
+
+        for (long trigram : trigrams) {
+            HoldingBitmap ids = postings.get(trigram);
+            if (ids == null) {
+                ids = new HoldingBitmap();
+                postings.put(trigram, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Method removes the trigrams of a holding's name and symbol from the index.
+     * @param id An integer value containing the holding ID of the investment.
+     * @param name String object containing the name the investment was added with.
+     * @param symbol String object containing the symbol the investment was added with.
+     */
+    void remove(int id, String name, String symbol) {
+        for (long trigram : trigrams(text(name, symbol))) {
+            HoldingBitmap ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+
+        trigramCounts[id] = 0;
+    }
+
+    /**
+     * Method finds the holdings most similar to a query.
+     * Holdings are ranked by the share of query trigrams they contain, ties are broken by the
+     * Dice coefficient so holdings with fewer unrelated trigrams come first.
+     * @param query String object containing the possibly misspelled text.
+     * @param limit An integer value containing the maximum number of holding IDs returned.
+     * @param minSimilarity A double value containing the lowest share of query trigrams a holding needs to be returned.
+     * @return An ArrayList containing the holding IDs of the most similar holdings, most similar first.
+     */
+    ArrayList<Integer> search(String query, int limit, double minSimilarity) {
+        HashSet<Long> trigrams = trigrams(query);
+        if (shared.length < trigramCounts.length) {
+            shared = new int[trigramCounts.length];
+        }
+        int [] shared = this.shared;
+        ArrayList<Integer> candidates = new ArrayList<>();
+
+        // count the query trigrams shared by every holding
+        for (long trigram : trigrams) {
+            HoldingBitmap ids = postings.get(trigram);
+            if (ids == null) {
+                continue;
+            }
+
+            PrimitiveIterator.OfInt iterator = ids.iterator();
+            while (iterator.hasNext()) {
+                int id = iterator.nextInt();
+                if (shared[id]++ == 0) {
+                    candidates.add(id);
+                }
+            }
+        }
+
+        ArrayList<Integer> matches = new ArrayList<>();
+        for (int id : candidates) {
+            if (shared[id] >= minSimilarity * trigrams.size()) {
+                matches.add(id);
+            }
+        }
+
+        // more shared trigrams rank higher, then fewer trigrams overall
+        matches.sort((first, second) -> shared[first] != shared[second] ?
+        Integer.compare(shared[second], shared[first]) :
+        Integer.compare(trigramCounts[first], trigramCounts[second]));
+
+        for (int id : candidates) {
+            shared[id] = 0;
+        }
+
+        return new ArrayList<>(matches.subList(0, Math.min(limit, matches.size())));
+    }
+
+    /**
+     * Private method joins the name and symbol of a holding, either may be missing from a loaded file.
+     */
+    private static String text(String name, String symbol) {
+        return (name == null ? "" : name) + " " + (symbol == null ? "" : symbol);
+    }
+
+    /**
+     * Private method splits a text into the distinct trigrams of its lowercase words.
+     * @param text String object containing the words separated by spaces, commas or slashes.
+     * @return A HashSet containing the packed trigrams of the text.
+     */
+    private static HashSet<Long> trigrams(String text) {
+        HashSet<Long> trigrams = new HashSet<>();
+
+        for (String word : text.toLowerCase().split("[ \n/,]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            String padded = "" + BOUNDARY + BOUNDARY + word + BOUNDARY;
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add((long)padded.charAt(i) << 32 | (long)padded.charAt(i + 1) << 16 | padded.charAt(i + 2));
+            }
+        }
+
+        return trigrams;
+    }
+}